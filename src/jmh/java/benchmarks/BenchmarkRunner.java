@@ -0,0 +1,48 @@
+package benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Lance JMH avec les options de la ligne de commande ({@code -h} pour la liste) et, sauf
+ * {@code -rf}/{@code -rff} explicites, enregistre les résultats en JSON sous {@code jmh-results/}
+ * (un fichier horodaté par exécution, pour comparer les exécutions).
+ * <p>
+ * Exemple : {@code java -jar target/benchmarks.jar CallGraphBenchmark -p classes=2000}
+ * </p>
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {}
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListWithParams() || cmd.shouldListProfilers()
+                || cmd.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        OptionsBuilder b = new OptionsBuilder();
+        b.parent(cmd);
+        if (!cmd.getResultFormat().hasValue()) b.resultFormat(ResultFormatType.JSON);
+        if (!cmd.getResult().hasValue()) {
+            File dir = new File("jmh-results");
+            dir.mkdirs();
+            String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+            b.result(new File(dir, "jmh-" + stamp + ".json").getPath());
+        }
+        Options opts = b.build();
+        new Runner(opts).run();
+    }
+}
@@ -0,0 +1,38 @@
+package benchmarks;
+
+import metrics.CallGraphBuilder;
+import model.ClassInfo;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Construction des graphes d'appels (méthodes, classes) à partir d'un modèle en mémoire. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CallGraphBenchmark {
+
+    @Param({"200", "2000", "20000"})
+    public int classes;
+
+    private List<ClassInfo> model;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        model = Fixtures.model(classes);
+    }
+
+    @Benchmark
+    public CallGraphBuilder.DiGraph<String> buildMethodGraph() {
+        return CallGraphBuilder.buildMethodGraph(model, true);
+    }
+
+    @Benchmark
+    public CallGraphBuilder.DiGraph<String> buildClassGraph() {
+        return CallGraphBuilder.buildClassGraph(model, false);
+    }
+}
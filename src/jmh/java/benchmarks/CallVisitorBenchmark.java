@@ -0,0 +1,129 @@
+package benchmarks;
+
+import analysis.ProjectAnalyzer;
+import analysis.ProjectGenerator;
+import model.ClassInfo;
+import model.MethodInfo;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.*;
+import org.openjdk.jmh.annotations.*;
+import visitors.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Collecte des appels sur des unités déjà parsées avec bindings : {@link CallVisitor} seul
+ * (après les trois visiteurs de déclaration, hors mesure), extraction complète par les quatre
+ * visiteurs historiques et par le visiteur fusionné.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CallVisitorBenchmark {
+
+    @Param({"100", "1000"})
+    public int classes;
+
+    private Path dir;
+    private final List<CompilationUnit> units = new ArrayList<>();
+    private final List<Map<String, ClassInfo>> classesByKey = new ArrayList<>();
+    private final List<Map<String, MethodInfo>> methodsByKey = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("jmh-callvisitor");
+        ProjectGenerator.Config config = new ProjectGenerator.Config();
+        config.classes = classes;
+        config.packages = Math.max(1, classes / Fixtures.PACKAGE_SIZE);
+        config.clusters = config.packages;
+        config.methodsPerClass = Fixtures.METHODS;
+        config.fanOut = Fixtures.CALLS_PER_METHOD;
+        config.intraRatio = Fixtures.LOCAL_CALL_RATIO;
+        config.seed = Fixtures.SEED;
+        ProjectGenerator.generate(config, dir);
+        List<Path> files = ProjectAnalyzer.javaFiles(dir.resolve("src"));
+
+        ASTParser parser = ASTParser.newParser(AST.JLS4);
+        parser.setKind(ASTParser.K_COMPILATION_UNIT);
+        parser.setResolveBindings(true);
+        parser.setBindingsRecovery(true);
+        Map options = JavaCore.getOptions();
+        JavaCore.setComplianceOptions(JavaCore.VERSION_1_7, options);
+        parser.setCompilerOptions(options);
+        parser.setEnvironment(new String[0], new String[]{dir.resolve("src").toString()}, new String[]{"UTF-8"}, true);
+
+        String[] paths = files.stream().map(p -> p.toAbsolutePath().toString()).toArray(String[]::new);
+        String[] encodings = new String[paths.length];
+        Arrays.fill(encodings, "UTF-8");
+        parser.createASTs(paths, encodings, new String[0], new FileASTRequestor() {
+            @Override
+            public void acceptAST(String sourceFilePath, CompilationUnit cu) {
+                units.add(cu);
+            }
+        }, null);
+
+        for (CompilationUnit cu : units) {
+            ClassDeclVisitor v1 = new ClassDeclVisitor();
+            cu.accept(v1);
+            cu.accept(new FieldVisitor(v1.getClassesByKey()));
+            MethodDeclVisitor v3 = new MethodDeclVisitor(v1.getClassesByKey(), cu);
+            cu.accept(v3);
+            classesByKey.add(v1.getClassesByKey());
+            methodsByKey.add(v3.getMethodsByKey());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> s = Files.walk(dir)) {
+            s.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int callVisitor() {
+        int calls = 0;
+        for (int k = 0; k < units.size(); k++) {
+            Map<String, MethodInfo> methods = methodsByKey.get(k);
+            for (MethodInfo mi : methods.values()) mi.calls.clear();
+            units.get(k).accept(new CallVisitor(classesByKey.get(k), methods));
+            for (MethodInfo mi : methods.values()) calls += mi.calls.size();
+        }
+        return calls;
+    }
+
+    @Benchmark
+    public int legacyVisitors() {
+        int methods = 0;
+        for (CompilationUnit cu : units) {
+            ClassDeclVisitor v1 = new ClassDeclVisitor();
+            cu.accept(v1);
+            cu.accept(new FieldVisitor(v1.getClassesByKey()));
+            MethodDeclVisitor v3 = new MethodDeclVisitor(v1.getClassesByKey(), cu);
+            cu.accept(v3);
+            cu.accept(new CallVisitor(v1.getClassesByKey(), v3.getMethodsByKey()));
+            for (ClassInfo ci : v1.getClassesByKey().values()) methods += ci.methods.size();
+        }
+        return methods;
+    }
+
+    @Benchmark
+    public int extractionVisitor() {
+        int methods = 0;
+        for (CompilationUnit cu : units) {
+            ExtractionVisitor v = new ExtractionVisitor(cu);
+            cu.accept(v);
+            for (ClassInfo ci : v.getClassesByKey().values()) methods += ci.methods.size();
+        }
+        return methods;
+    }
+}
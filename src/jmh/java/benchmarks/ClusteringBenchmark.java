@@ -0,0 +1,52 @@
+package benchmarks;
+
+import metrics.CallGraphBuilder;
+import metrics.CouplingMatrix;
+import metrics.HierarchicalClustering;
+import metrics.ModuleIdentifier;
+import model.ClassInfo;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clustering hiérarchique et identification des modules. Les couplages sont précalculés (hors
+ * mesure) : seul l'algorithme de regroupement est mesuré.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClusteringBenchmark {
+
+    @Param({"50", "100", "200"})
+    public int classes;
+
+    @Param({"AVERAGE", "SINGLE", "COMPLETE"})
+    public HierarchicalClustering.Linkage linkage;
+
+    private List<ClassInfo> model;
+    private HierarchicalClustering.Coupling coupling;
+    private HierarchicalClustering.Node root;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        model = Fixtures.model(classes);
+        CallGraphBuilder.DiGraph<String> graph = CallGraphBuilder.buildMethodGraph(model, true);
+        coupling = CouplingMatrix.of(graph, model, false);
+        root = HierarchicalClustering.cluster(model, coupling, linkage);
+    }
+
+    @Benchmark
+    public HierarchicalClustering.Node cluster() {
+        return HierarchicalClustering.cluster(model, coupling, linkage);
+    }
+
+    @Benchmark
+    public ModuleIdentifier.Result identify() {
+        return ModuleIdentifier.identify(root, coupling, 0.05);
+    }
+}
@@ -0,0 +1,81 @@
+package benchmarks;
+
+import metrics.CallGraphBuilder;
+import metrics.CouplingGraphBuilder;
+import metrics.MetricsCalculator;
+import model.ClassInfo;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Couplage : {@link MetricsCalculator#calculateCoupling} sur un échantillon fixe de couples (coût
+ * par couple, proportionnel à la taille du graphe), et graphe complet {@link CouplingGraphBuilder#buildFromCalculator}
+ * (quadratique en nombre de classes, d'où des tailles plus petites).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CouplingBenchmark {
+
+    static final int SAMPLED_PAIRS = 16;
+
+    @State(Scope.Benchmark)
+    public static class Pairs {
+        @Param({"200", "2000", "20000"})
+        public int classes;
+
+        List<ClassInfo> model;
+        CallGraphBuilder.DiGraph<String> graph;
+        int[][] pairs;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            model = Fixtures.model(classes);
+            graph = CallGraphBuilder.buildMethodGraph(model, true);
+            Random rnd = new Random(Fixtures.SEED);
+            pairs = new int[SAMPLED_PAIRS][];
+            for (int k = 0; k < SAMPLED_PAIRS; k++) {
+                // moitié dans un même package (couplage non nul), moitié au hasard
+                int a = rnd.nextInt(classes);
+                int b = (k % 2 == 0)
+                        ? Math.min(classes - 1, (a / Fixtures.PACKAGE_SIZE) * Fixtures.PACKAGE_SIZE + rnd.nextInt(Fixtures.PACKAGE_SIZE))
+                        : rnd.nextInt(classes);
+                pairs[k] = new int[]{a, b};
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class AllPairs {
+        @Param({"25", "50", "100"})
+        public int classes;
+
+        List<ClassInfo> model;
+        CallGraphBuilder.DiGraph<String> graph;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            model = Fixtures.model(classes);
+            graph = CallGraphBuilder.buildMethodGraph(model, true);
+        }
+    }
+
+    @Benchmark
+    public float calculateCoupling(Pairs s) {
+        float sum = 0;
+        for (int[] p : s.pairs) {
+            sum += MetricsCalculator.calculateCoupling(s.graph, s.model, s.model.get(p[0]), s.model.get(p[1]));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public CouplingGraphBuilder.WeightedGraph<String> buildFromCalculator(AllPairs s) {
+        return CouplingGraphBuilder.buildFromCalculator(s.graph, s.model);
+    }
+}
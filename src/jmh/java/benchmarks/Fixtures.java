@@ -0,0 +1,99 @@
+package benchmarks;
+
+import model.ClassInfo;
+import model.MethodCallInfo;
+import model.MethodInfo;
+
+import java.util.*;
+
+/**
+ * Projets synthétiques déterministes pour les benchmarks : {@code n} classes réparties en packages
+ * de {@value #PACKAGE_SIZE}, chacune avec {@value #METHODS} méthodes qui appellent surtout des classes
+ * de leur package, parfois une classe quelconque, et une méthode externe.
+ * <p>
+ * Le modèle est construit en mémoire, comme après une analyse en mode rapide ; les étapes qui
+ * parsent utilisent des sources de même forme produites par {@code analysis.ProjectGenerator}.
+ * </p>
+ */
+final class Fixtures {
+
+    static final int PACKAGE_SIZE = 25;
+    static final int METHODS = 8;
+    static final int CALLS_PER_METHOD = 3;
+    static final double LOCAL_CALL_RATIO = 0.8;
+    static final long SEED = 42L;
+
+    private Fixtures() {}
+
+    static String packageOf(int i) {
+        return "p" + (i / PACKAGE_SIZE);
+    }
+
+    static String classOf(int i) {
+        return "C" + i;
+    }
+
+    /**
+     * Modèle de {@code n} classes, sans passer par JDT.
+     * @param n
+     * @return
+     */
+    static List<ClassInfo> model(int n) {
+        Random rnd = new Random(SEED);
+        List<ClassInfo> classes = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            ClassInfo ci = new ClassInfo();
+            ci.packageName = packageOf(i);
+            ci.className = classOf(i);
+            ci.qualifiedName = ci.packageName + "." + ci.className;
+            ci.typeKey = "NO_BINDING:" + ci.qualifiedName;
+            ci.superClass = "java.lang.Object";
+            for (int m = 0; m < METHODS; m++) {
+                MethodInfo mi = new MethodInfo();
+                mi.name = "m" + m;
+                mi.visibility = "public";
+                mi.returnType = "int";
+                mi.parameterTypes.add("int");
+                mi.parametersCount = 1;
+                mi.declaringType = ci.qualifiedName;
+                mi.methodKey = "NO_BINDING:" + ci.qualifiedName + "#" + mi.name + "(int)";
+                mi.loc = CALLS_PER_METHOD + 3;
+                for (int[] t : targets(rnd, i, n)) {
+                    String owner = packageOf(t[0]) + "." + classOf(t[0]);
+                    mi.calls.add(call(owner, "m" + t[1]));
+                }
+                MethodCallInfo ext = call("java.lang.Math", "abs");
+                ext.methodKey = null;
+                ext.qualifiedSignature = "java.lang.Math.abs(int)->int";
+                mi.calls.add(ext);
+                ci.methods.add(mi);
+            }
+            classes.add(ci);
+        }
+        return classes;
+    }
+
+    /** Cibles des appels d'une méthode de la classe i : {classe, méthode}. */
+    private static List<int[]> targets(Random rnd, int i, int n) {
+        List<int[]> out = new ArrayList<>(CALLS_PER_METHOD);
+        int pkgStart = (i / PACKAGE_SIZE) * PACKAGE_SIZE;
+        int pkgSize = Math.min(PACKAGE_SIZE, n - pkgStart);
+        for (int c = 0; c < CALLS_PER_METHOD; c++) {
+            int target = (rnd.nextDouble() < LOCAL_CALL_RATIO)
+                    ? pkgStart + rnd.nextInt(pkgSize)
+                    : rnd.nextInt(n);
+            out.add(new int[]{target, rnd.nextInt(METHODS)});
+        }
+        return out;
+    }
+
+    private static MethodCallInfo call(String owner, String name) {
+        MethodCallInfo c = new MethodCallInfo();
+        c.name = name;
+        c.declaringType = owner;
+        c.receiverStaticType = owner;
+        c.argumentCount = 1;
+        c.methodKey = "NO_BINDING:" + owner + "#" + name + "(int)";
+        return c;
+    }
+}
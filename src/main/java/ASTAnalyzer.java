@@ -1,17 +1,14 @@
+import analysis.AnalysisCache;
+import analysis.ProjectAnalyzer;
+import analysis.ProjectWatcher;
+import instrumentation.Instrumentation;
 import metrics.MetricsCalculator;
-import model.ClassInfo;
-import model.MethodInfo;
+import model.ProjectModel;
 import ui.MetricsUI;
-import visitors.*;
-import org.eclipse.jdt.core.JavaCore;
-import org.eclipse.jdt.core.dom.*;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class ASTAnalyzer {
 
@@ -30,68 +27,30 @@ public class ASTAnalyzer {
             JAVA_HOME + "/jmods/java.net.http.jmod"
     };
 
-    private static List<ClassInfo> infos = new ArrayList<>();
+    // Nombre de threads d'analyse (parse + visiteurs)
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
 
-    private static Map<String, Integer> filesLOC = new HashMap<>();
-    private static Set<String> packagesSet = new HashSet<>();
+    // false : un parser par fichier, pour comparer le temps affiché avec le parsing par lots partagé
+    private static final boolean BATCH_PARSING = true;
 
-    public static List<ClassInfo> analyze(String unitName, String source,
-                                          String[] classpath, String[] sourcepath) {
+    // Mode rapide : parse sans bindings, appels résolus par nom (moins précis, bien plus rapide)
+    private static final boolean FAST_MODE = false;
 
-        CompilationUnit cu = parse(unitName, source.toCharArray(), classpath, sourcepath);
+    // Nombre max d'ASTs en mémoire simultanément (0 = pas de limite) : borne le heap sur les gros projets
+    private static final int MAX_RESIDENT_UNITS = 0;
 
-        int fileLOC = source.isEmpty() ? 0 : cu.getLineNumber(source.length() - 1);
-        filesLOC.put(source.toString(), fileLOC);
+    // Analyse incrémentale : résultats par fichier conservés entre deux exécutions, dans le projet analysé.
+    // Une entrée est reprise si le contenu du fichier (SHA-256) et l'empreinte de l'environnement
+    // (classpath, sourcepath, options) n'ont pas changé ; les fichiers qui référencent un type dont
+    // les déclarations ont changé sont reparsés.
+    private static final boolean INCREMENTAL = false;
+    private static final String CACHE_DIR = projectPath + "/.analysis-cache";
 
-        PackageDeclaration packageDeclaration = cu.getPackage();
-        if (packageDeclaration != null) {
-            String packages = packageDeclaration.getName().getFullyQualifiedName();
-            if (packages != null) packagesSet.add(packages);
-        }
-
-        ClassDeclVisitor v1 = new ClassDeclVisitor();
-        cu.accept(v1);
-        Map<String, ClassInfo> classesByKey = v1.getClassesByKey();
-
-        FieldVisitor v2 = new FieldVisitor(classesByKey);
-        cu.accept(v2);
-
-        MethodDeclVisitor v3 = new MethodDeclVisitor(classesByKey, cu);
-        cu.accept(v3);
-        Map<String, MethodInfo> methodsByKey = v3.getMethodsByKey();
-
-        CallVisitor v4 = new CallVisitor(classesByKey, methodsByKey);
-        cu.accept(v4);
-
-        return new ArrayList<>(classesByKey.values());
-    }
-
-    private static CompilationUnit parse(String unitName, char[] classSource,
-                                         String[] classpath, String[] sourcepath) {
-
-        ASTParser parser = ASTParser.newParser(AST.JLS4);
-        parser.setKind(ASTParser.K_COMPILATION_UNIT);
-        parser.setResolveBindings(true);
-        parser.setBindingsRecovery(true);
-
-        @SuppressWarnings("rawtypes")
-        Map options = JavaCore.getOptions();
-        JavaCore.setComplianceOptions(JavaCore.VERSION_1_7, options); // ou VERSION_1_8 si Java 8
-        parser.setCompilerOptions(options);
-
-        parser.setUnitName((unitName != null && !unitName.isEmpty()) ? unitName : "Unit.java");
-        parser.setSource(classSource);
+    // Mode watch : réanalyse à chaque modification des sources et met à jour la fenêtre ouverte
+    private static final boolean WATCH = false;
 
-        String[] cp = (classpath != null) ? classpath : new String[0];
-        String[] sp = (sourcepath != null && sourcepath.length > 0)
-                ? sourcepath
-                : new String[]{projectSourcePath};
-        String[] enc = (sp.length > 0) ? new String[]{"UTF-8"} : null;
-
-        parser.setEnvironment(cp, sp, enc, true);
-
-        return (CompilationUnit) parser.createAST(null);
-    }
+    // Mesure par phase et par fichier (temps réel, CPU, allocations) + événements JFR, tableau en fin d'analyse
+    private static final boolean INSTRUMENT = false;
 
     // ===========================
     // Parcours du projet
@@ -111,32 +70,43 @@ public class ASTAnalyzer {
 
         String[] sourcepath = new String[]{projectSourcePath};
 
-        Map<String, ClassInfo> byQualifiedName = new LinkedHashMap<>();
-
-        try (Stream<Path> files = Files.walk(root)) {
-            List<Path> javaFiles = files
-                    .filter(p -> p.toString().endsWith(".java"))
-                    .collect(Collectors.toList());
-
-            for (Path p : javaFiles) {
-                String code = Files.readString(p, StandardCharsets.UTF_8);
-                String unitName = root.relativize(p).toString().replace('\\', '/'); // utile pour résolutions relatives
-
-                infos.addAll(analyze(unitName, code, classpath, sourcepath));
-
-                for (ClassInfo ci : infos) {
-                    /*String key = (ci.qualifiedName != null && !ci.qualifiedName.isEmpty())
-                            ? ci.qualifiedName
-                            : (ci.packageName + "." + ci.className);
-
-                    byQualifiedName.putIfAbsent(key, ci);*/
-                  //  System.out.println(ci.toString());
-                }
-            }
+        long t0 = System.nanoTime();
+        List<Path> javaFiles = ProjectAnalyzer.javaFiles(root);
+
+        ProjectAnalyzer analyzer = new ProjectAnalyzer(root, classpath, sourcepath, PARALLELISM);
+        analyzer.setBatchParsing(BATCH_PARSING);
+        analyzer.setMaxResidentUnits(MAX_RESIDENT_UNITS);
+        analyzer.setResolveBindings(!FAST_MODE);
+        Instrumentation inst = INSTRUMENT ? new Instrumentation() : null;
+        analyzer.setInstrumentation(inst);
+        AnalysisCache cache = new AnalysisCache(Paths.get(CACHE_DIR));
+        ProjectModel model;
+        if (INCREMENTAL || WATCH) {
+            ProjectAnalyzer.IncrementalResult r = analyzer.analyze(javaFiles, cache);
+            model = r.model;
+            System.out.println("Incrémental : " + r.reused + " repris du cache, " + r.changed + " modifiés, "
+                    + r.dependents + " dépendants reparsés, " + r.removed + " supprimés");
+        } else {
+            model = analyzer.analyze(javaFiles);
         }
 
-        MetricsCalculator.Metrics result = MetricsCalculator.compute(infos, filesLOC, packagesSet);
-        MetricsUI.show(result, infos, 5);
+        long elapsedMs = (System.nanoTime() - t0) / 1_000_000;
+        System.out.println("Analyse (" + analyzer.getParallelism() + " threads) : "
+                + javaFiles.size() + " fichiers, " + model.classes.size() + " classes en " + elapsedMs + " ms");
+        if (analyzer.getLastIngestionStats() != null) System.out.println("Ingestion : " + analyzer.getLastIngestionStats());
+        if (analyzer.getLastResolutionStats() != null) System.out.println("Résolution par nom : " + analyzer.getLastResolutionStats());
+
+        MetricsCalculator.Metrics result = MetricsCalculator.compute(model.classes, model.files, model.packages);
+        MetricsUI ui = MetricsUI.show(result, model, 5, inst);
+        if (inst != null) inst.printSummary(System.out, 10);
+
+        if (WATCH && ui != null) {
+            // Le cache reste en mémoire : seuls les fichiers modifiés (et leurs dépendants) sont reparsés
+            ProjectWatcher watcher = new ProjectWatcher(analyzer, cache, m ->
+                    ui.refresh(MetricsCalculator.compute(m.classes, m.files, m.packages), m));
+            watcher.start();
+            System.out.println("Watch : surveillance de " + root);
+        }
 
         // Affichage simple : classes -> méthodes -> appels
        /* for (Map.Entry<String, ClassInfo> e : byQualifiedName.entrySet()) {
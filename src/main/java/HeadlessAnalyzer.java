@@ -0,0 +1,307 @@
+import analysis.AnalysisCache;
+import analysis.ProjectAnalyzer;
+import instrumentation.Instrumentation;
+import metrics.CallGraphBuilder;
+import metrics.CouplingGraphBuilder;
+import metrics.CouplingService;
+import metrics.CsrGraph;
+import metrics.HierarchicalClustering;
+import metrics.ModuleIdentifier;
+import metrics.Reachability;
+import metrics.StronglyConnected;
+import model.ProjectModel;
+import report.AnalysisReport;
+import report.ReportWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Point d'entrée sans interface graphique (CI, scripts) : analyse, graphe d'appels, couplage,
+ * clustering et modules, puis export JSON et/ou CSV. Aucune classe Swing/AWT n'est chargée.
+ * <p>
+ * Codes de sortie : 0 = succès, 1 = échec de l'analyse ou de l'écriture, 2 = arguments invalides.
+ * </p>
+ */
+public class HeadlessAnalyzer {
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_FAILURE = 1;
+    static final int EXIT_USAGE = 2;
+
+    private static final String USAGE = String.join("\n",
+            "Usage : HeadlessAnalyzer --src <dossier> [--src <dossier> ...] [options]",
+            "  --cp <entrées>          classpath (séparateur " + File.pathSeparator + "), répétable",
+            "  --out <dossier>         dossier de sortie (défaut : analysis-out)",
+            "  --format json|csv|all   format(s) de sortie (défaut : json)",
+            "  --threads <n>           threads d'analyse (défaut : nombre de processeurs)",
+            "  --cache <dossier>       active l'analyse incrémentale avec ce cache",
+            "  --fast                  parse sans bindings, appels résolus par nom (plus rapide, moins précis)",
+            "  --max-resident <n>      nombre max d'ASTs en mémoire simultanément (défaut : pas de limite)",
+            "  --linkage single|complete|average   liaison du clustering (défaut : average)",
+            "  --cp-threshold <x>      seuil de couplage moyen des modules (défaut : 0.05)",
+            "  --dispatch static|cha|rta  résolution des appels virtuels (défaut : static)",
+            "  --weighted-coupling     couplage compté en appels (multiplicité) plutôt qu'en arêtes",
+            "  --no-modules            ne calcule ni couplage, ni clustering, ni modules",
+            "  --cycles                composantes fortement connexes (méthodes, classes, packages)",
+            "  --dead-code main|public méthodes non atteignables depuis les main (et l'API publique)",
+            "  --profile               affiche le détail par phase et par fichier (réel, CPU, allocations)");
+
+    /** Options de la ligne de commande. */
+    static final class Options {
+        final List<Path> roots = new ArrayList<>();
+        final List<String> classpath = new ArrayList<>();
+        Path out = Paths.get("analysis-out");
+        boolean json = true;
+        boolean csv = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path cacheDir;
+        int maxResident = 0;
+        boolean fast = false;
+        HierarchicalClustering.Linkage linkage = HierarchicalClustering.Linkage.AVERAGE;
+        double cpThreshold = 0.05;
+        boolean modules = true;
+        boolean weightedCoupling = false;
+        CallGraphBuilder.Dispatch dispatch = CallGraphBuilder.Dispatch.STATIC;
+        boolean profile = false;
+        String deadCode;                  // null, "main" ou "public"
+        boolean cycles = false;
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    /**
+     * Exécute le pipeline complet.
+     * @param args
+     * @return code de sortie
+     */
+    static int run(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        Options o;
+        try {
+            o = parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return EXIT_USAGE;
+        }
+        if (o == null) {
+            System.out.println(USAGE);
+            return EXIT_OK;
+        }
+
+        try {
+            Instrumentation inst = new Instrumentation();
+            AnalysisReport report = analyze(o, inst);
+            Files.createDirectories(o.out);
+            if (o.json) {
+                try (Writer w = Files.newBufferedWriter(o.out.resolve("report.json"), StandardCharsets.UTF_8)) {
+                    ReportWriter.writeJson(report, w);
+                }
+            }
+            if (o.csv) ReportWriter.writeCsv(report, o.out);
+
+            System.out.println(report.model.files.size() + " fichiers, " + report.model.classes.size()
+                    + " classes -> " + o.out.toAbsolutePath() + "  " + report.timingsMs);
+            if (o.profile) inst.printSummary(System.out, 10);
+            return EXIT_OK;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Echec : " + e);
+            return EXIT_FAILURE;
+        }
+    }
+
+    @SuppressWarnings("try")
+    private static AnalysisReport analyze(Options o, Instrumentation inst) throws IOException {
+        List<Path> files = new ArrayList<>();
+        String[] sourcepath = new String[o.roots.size()];
+        for (int i = 0; i < o.roots.size(); i++) {
+            files.addAll(ProjectAnalyzer.javaFiles(o.roots.get(i)));
+            sourcepath[i] = o.roots.get(i).toString();
+        }
+
+        // Les chemins du modèle sont relatifs à l'ancêtre commun des racines (uniques entre racines)
+        ProjectAnalyzer analyzer = new ProjectAnalyzer(commonAncestor(o.roots),
+                o.classpath.toArray(new String[0]), sourcepath, o.threads);
+        analyzer.setMaxResidentUnits(o.maxResident);
+        analyzer.setResolveBindings(!o.fast);
+        analyzer.setInstrumentation(inst);
+        ProjectModel model = (o.cacheDir != null)
+                ? analyzer.analyze(files, new AnalysisCache(o.cacheDir)).model
+                : analyzer.analyze(files);
+        if (analyzer.getLastIngestionStats() != null) System.out.println("Ingestion : " + analyzer.getLastIngestionStats());
+        if (analyzer.getLastResolutionStats() != null) System.out.println("Résolution par nom : " + analyzer.getLastResolutionStats());
+
+        CallGraphBuilder.DiGraph<String> gMethods;
+        try (Instrumentation.Span s = inst.begin(Instrumentation.CALL_GRAPH)) {
+            gMethods = CallGraphBuilder.buildMethodGraph(model.symbols(), true, o.dispatch);
+        }
+
+        CouplingGraphBuilder.WeightedGraph<String> gCoupling = null;
+        ModuleIdentifier.Result modules = null;
+        if (o.modules) {
+            // La matrice du service sert au graphe de couplage, au clustering et aux modules
+            CouplingService couplingFn = new CouplingService(o.weightedCoupling);
+            couplingFn.update(model.symbols(), gMethods);
+            try (Instrumentation.Span s = inst.begin(Instrumentation.COUPLING)) {
+                gCoupling = CouplingGraphBuilder.fromMatrix(couplingFn.matrix());
+            }
+
+            HierarchicalClustering.Node root;
+            try (Instrumentation.Span s = inst.begin(Instrumentation.CLUSTERING)) {
+                root = HierarchicalClustering.cluster(model.classes, couplingFn, o.linkage);
+            }
+
+            if (root != null) {
+                try (Instrumentation.Span s = inst.begin(Instrumentation.MODULES)) {
+                    modules = ModuleIdentifier.identify(root, couplingFn, o.cpThreshold);
+                }
+            }
+        }
+
+        Reachability.DeadCode deadCode = null;
+        if (o.deadCode != null) {
+            try (Instrumentation.Span s = inst.begin(Instrumentation.REACHABILITY)) {
+                CsrGraph csr = ((CsrGraph.View) gMethods).csr();
+                deadCode = Reachability.deadCode(model.symbols(), csr, o.deadCode.equals("public"));
+            }
+        }
+
+        Map<String, StronglyConnected> components = null;
+        if (o.cycles) {
+            try (Instrumentation.Span s = inst.begin(Instrumentation.CYCLES)) {
+                components = new LinkedHashMap<>();
+                components.put("methods", StronglyConnected.of(gMethods));
+                components.put("classes", StronglyConnected.of(CallGraphBuilder.buildClassCsr(model.classes, false)));
+                components.put("packages", StronglyConnected.of(CallGraphBuilder.buildPackageCsr(model.classes, false)));
+            }
+        }
+        // Durées cumulées par phase (les phases par fichier s'additionnent sur tous les threads)
+        return new AnalysisReport(model, gMethods, gCoupling, modules, deadCode, components, inst.wallMillis());
+    }
+
+    /**
+     * Lit les arguments.
+     * @param args
+     * @return les options, ou null si l'aide est demandée
+     */
+    static Options parse(String[] args) {
+        Options o = new Options();
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            switch (a) {
+                case "-h":
+                case "--help":
+                    return null;
+                case "--src": {
+                    Path p = Paths.get(value(args, ++i, a));
+                    if (!Files.isDirectory(p)) throw new IllegalArgumentException("Dossier source introuvable : " + p);
+                    o.roots.add(p.toAbsolutePath().normalize());
+                    break;
+                }
+                case "--cp":
+                    for (String e : value(args, ++i, a).split(File.pathSeparator)) {
+                        if (!e.isEmpty()) o.classpath.add(e);
+                    }
+                    break;
+                case "--out":
+                    o.out = Paths.get(value(args, ++i, a));
+                    break;
+                case "--format": {
+                    String f = value(args, ++i, a).toLowerCase(Locale.ROOT);
+                    if (!f.equals("json") && !f.equals("csv") && !f.equals("all")) {
+                        throw new IllegalArgumentException("Format inconnu : " + f);
+                    }
+                    o.json = !f.equals("csv");
+                    o.csv = !f.equals("json");
+                    break;
+                }
+                case "--threads":
+                    o.threads = Math.max(1, intValue(args, ++i, a));
+                    break;
+                case "--fast":
+                    o.fast = true;
+                    break;
+                case "--max-resident":
+                    o.maxResident = Math.max(0, intValue(args, ++i, a));
+                    break;
+                case "--cache":
+                    o.cacheDir = Paths.get(value(args, ++i, a));
+                    break;
+                case "--linkage":
+                    try {
+                        o.linkage = HierarchicalClustering.Linkage.valueOf(value(args, ++i, a).toUpperCase(Locale.ROOT));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Linkage inconnu : " + args[i]);
+                    }
+                    break;
+                case "--cp-threshold":
+                    try {
+                        o.cpThreshold = Double.parseDouble(value(args, ++i, a));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Nombre attendu après " + a);
+                    }
+                    break;
+                case "--dispatch":
+                    try {
+                        o.dispatch = CallGraphBuilder.Dispatch.valueOf(value(args, ++i, a).toUpperCase(Locale.ROOT));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Résolution inconnue : " + args[i]);
+                    }
+                    break;
+                case "--weighted-coupling":
+                    o.weightedCoupling = true;
+                    break;
+                case "--dead-code": {
+                    String d = value(args, ++i, a).toLowerCase(Locale.ROOT);
+                    if (!d.equals("main") && !d.equals("public")) {
+                        throw new IllegalArgumentException("Points d'entrée inconnus : " + d);
+                    }
+                    o.deadCode = d;
+                    break;
+                }
+                case "--cycles":
+                    o.cycles = true;
+                    break;
+                case "--no-modules":
+                    o.modules = false;
+                    break;
+                case "--profile":
+                    o.profile = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Option inconnue : " + a);
+            }
+        }
+        if (o.roots.isEmpty()) throw new IllegalArgumentException("Au moins un --src est requis");
+        return o;
+    }
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) throw new IllegalArgumentException("Valeur manquante après " + option);
+        return args[i];
+    }
+
+    private static int intValue(String[] args, int i, String option) {
+        try {
+            return Integer.parseInt(value(args, i, option));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Entier attendu après " + option);
+        }
+    }
+
+    private static Path commonAncestor(List<Path> roots) {
+        Path common = roots.get(0);
+        for (Path p : roots) {
+            while (common != null && !p.startsWith(common)) common = common.getParent();
+        }
+        return (common != null) ? common : roots.get(0).getRoot();
+    }
+}
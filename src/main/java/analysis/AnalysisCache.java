@@ -0,0 +1,206 @@
+package analysis;
+
+import model.ClassInfo;
+import model.FileAnalysis;
+import model.MethodCallInfo;
+import model.MethodInfo;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Cache persistant des résultats d'analyse par fichier.
+ * <p>
+ * Chaque entrée contient le {@link FileAnalysis} d'un fichier, le hash de son contenu et
+ * l'empreinte de l'environnement (classpath, options) avec lesquels il a été calculé, ainsi que
+ * les types qu'il déclare et ceux qu'il référence (pour retrouver les dépendants d'un fichier modifié).
+ * Une entrée par fichier dans {@code dir}, chargées à la demande et gardées en mémoire.
+ * </p>
+ * <p>
+ * Invalidation : une entrée n'est reprise que si le hash du contenu et l'empreinte sont identiques
+ * ({@link ProjectAnalyzer#environmentFingerprint}, qui change aussi avec le format extrait). Un
+ * fichier inchangé est tout de même reparsé s'il référence un type d'un fichier modifié ou supprimé
+ * dont les déclarations ont changé.
+ * </p>
+ */
+public class AnalysisCache {
+
+    /** Entrée du cache pour un fichier source. */
+    public static final class Entry implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        public final String path;
+        public final String contentHash;
+        public final String fingerprint;
+        public final Set<String> declaredTypes;
+        public final Set<String> referencedTypes;
+        public final FileAnalysis analysis;
+
+        Entry(String path, String contentHash, String fingerprint, FileAnalysis analysis) {
+            this.path = path;
+            this.contentHash = contentHash;
+            this.fingerprint = fingerprint;
+            this.analysis = analysis;
+            this.declaredTypes = declaredTypesOf(analysis);
+            this.referencedTypes = referencedTypesOf(analysis);
+        }
+    }
+
+    private final Path dir;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private boolean loaded;
+
+    public AnalysisCache(Path dir) {
+        this.dir = Objects.requireNonNull(dir, "dir");
+    }
+
+    /**
+     * Entrée valide pour ce fichier (même contenu, même environnement), ou null.
+     * @param path chemin relatif
+     * @param contentHash
+     * @param fingerprint
+     * @return
+     */
+    public synchronized Entry lookup(String path, String contentHash, String fingerprint) {
+        Entry e = entries().get(path);
+        if (e == null || !e.contentHash.equals(contentHash) || !e.fingerprint.equals(fingerprint)) return null;
+        return e;
+    }
+
+    /** Dernière entrée connue pour ce fichier, même périmée (ou null). */
+    public synchronized Entry previous(String path) {
+        return entries().get(path);
+    }
+
+    /** Chemins relatifs de tous les fichiers présents dans le cache. */
+    public synchronized Set<String> paths() {
+        return new HashSet<>(entries().keySet());
+    }
+
+    public synchronized void put(String path, String contentHash, String fingerprint, FileAnalysis analysis) {
+        Entry e = new Entry(path, contentHash, fingerprint, analysis);
+        entries().put(path, e);
+        write(e);
+    }
+
+    public synchronized void remove(String path) {
+        entries().remove(path);
+        try {
+            Files.deleteIfExists(fileOf(path));
+        } catch (IOException ignored) {}
+    }
+
+    // ---- hash ----
+
+    /**
+     * Hash SHA-256 (hexadécimal) d'un contenu.
+     * @param content
+     * @return
+     */
+    public static String hash(byte[] content) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] d = md.digest(content);
+            StringBuilder sb = new StringBuilder(d.length * 2);
+            for (byte b : d) sb.append(String.format("%02x", b));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String hash(String s) {
+        return hash(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // ---- disque ----
+
+    private Map<String, Entry> entries() {
+        if (!loaded) {
+            loaded = true;
+            if (Files.isDirectory(dir)) {
+                try (Stream<Path> files = Files.list(dir)) {
+                    files.filter(p -> p.toString().endsWith(".bin")).forEach(p -> {
+                        Entry e = read(p);
+                        if (e != null) entries.put(e.path, e);
+                    });
+                } catch (IOException ignored) {
+                    // cache illisible : on repart de zéro
+                }
+            }
+        }
+        return entries;
+    }
+
+    private Path fileOf(String path) {
+        return dir.resolve(hash(path).substring(0, 32) + ".bin");
+    }
+
+    private static Entry read(Path p) {
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(p)))) {
+            return (Entry) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            return null; // entrée corrompue ou d'un ancien format : elle sera recalculée
+        }
+    }
+
+    private void write(Entry e) {
+        try {
+            Files.createDirectories(dir);
+            Path target = fileOf(e.path);
+            Path tmp = Files.createTempFile(dir, "entry", ".tmp");
+            try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeObject(e);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            // le cache n'est qu'une optimisation : un échec d'écriture ne bloque pas l'analyse
+            System.err.println("Cache : écriture impossible pour " + e.path + " (" + ex.getMessage() + ")");
+        }
+    }
+
+    // ---- dépendances ----
+
+    /** Noms (qualifiés et simples) des types déclarés dans un fichier. */
+    private static Set<String> declaredTypesOf(FileAnalysis fa) {
+        Set<String> s = new HashSet<>();
+        for (ClassInfo ci : fa.classes) {
+            if (ci.qualifiedName != null) s.add(ci.qualifiedName);
+            s.add(ci.className);
+        }
+        return s;
+    }
+
+    /** Noms des types auxquels un fichier fait référence (hiérarchie, attributs, signatures, appels). */
+    private static Set<String> referencedTypesOf(FileAnalysis fa) {
+        Set<String> s = new HashSet<>();
+        for (ClassInfo ci : fa.classes) {
+            addType(s, ci.superClass);
+            for (String t : ci.superClassesChain) addType(s, t);
+            for (String t : ci.interfaces) addType(s, t);
+            ci.fields.forEach(f -> addType(s, f.type));
+            for (MethodInfo mi : ci.methods) {
+                addType(s, mi.returnType);
+                for (String t : mi.parameterTypes) addType(s, t);
+                for (MethodCallInfo call : mi.calls) {
+                    addType(s, call.declaringType);
+                    addType(s, call.receiverStaticType);
+                }
+            }
+        }
+        return s;
+    }
+
+    /** Ajoute les noms de types d'une déclaration textuelle (y compris arguments génériques). */
+    private static void addType(Set<String> s, String type) {
+        if (type == null || type.isEmpty()) return;
+        for (String t : type.split("[<>,\\[\\]\\s?&]+")) {
+            if (!t.isEmpty()) s.add(t);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package analysis;
+
+import java.util.Locale;
+
+/**
+ * Mesures de la dernière ingestion : nombre de lots, unités (ASTs) résidentes au maximum
+ * et pic de heap observé pendant le parsing.
+ */
+public final class IngestionStats {
+    public final int files;
+    public final int batches;
+    public final int residentLimit;      // 0 = pas de limite
+    public final int maxResidentUnits;   // pic d'unités parsées simultanément en mémoire
+    public final long peakHeapBytes;     // pic de heap utilisé, échantillonné à chaque AST
+
+    IngestionStats(int files, int batches, int residentLimit, int maxResidentUnits, long peakHeapBytes) {
+        this.files = files;
+        this.batches = batches;
+        this.residentLimit = residentLimit;
+        this.maxResidentUnits = maxResidentUnits;
+        this.peakHeapBytes = peakHeapBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d fichiers en %d lots, ASTs résidents max %d (limite %s), pic heap %.1f Mo",
+                files, batches, maxResidentUnits, residentLimit > 0 ? String.valueOf(residentLimit) : "aucune",
+                peakHeapBytes / (1024.0 * 1024.0));
+    }
+}
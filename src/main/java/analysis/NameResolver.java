@@ -0,0 +1,350 @@
+package analysis;
+
+import model.ClassInfo;
+import model.FieldInfo;
+import model.MethodCallInfo;
+import model.MethodInfo;
+
+import java.util.*;
+
+/**
+ * Résolution des appels par nom, pour un modèle extrait sans bindings (mode rapide).
+ * <p>
+ * Un index du projet (types par nom qualifié et par nom simple, attributs, méthodes) permet de
+ * retrouver le type du receveur de chaque appel : variable locale ou paramètre (relevé par le
+ * visiteur), attribut de la classe ou d'une super-classe du projet, nom de type, puis imports,
+ * même package et imports à la demande. La méthode cible est choisie par nom et nombre d'arguments
+ * dans la hiérarchie du receveur ; s'il reste plusieurs candidats, l'appel est laissé ambigu.
+ * </p>
+ * <p>
+ * Un appel résolu vers le projet reçoit la clé {@code NO_BINDING:} de la méthode cible, reconnue
+ * par {@link metrics.CallGraphBuilder}.
+ * </p>
+ */
+public final class NameResolver {
+
+    private static final String NO_BINDING = "NO_BINDING:";
+
+    /** Bilan de la résolution. */
+    public static final class Stats {
+        public final int calls;        // appels sans binding examinés
+        public final int resolved;     // cible unique dans le projet
+        public final int external;     // receveur hors projet (import, java.lang, super-classe externe)
+        public final int ambiguous;    // plusieurs cibles possibles
+        public final int unresolved;   // receveur inconnu et aucune cible trouvée
+
+        Stats(int calls, int resolved, int external, int ambiguous, int unresolved) {
+            this.calls = calls;
+            this.resolved = resolved;
+            this.external = external;
+            this.ambiguous = ambiguous;
+            this.unresolved = unresolved;
+        }
+
+        @Override
+        public String toString() {
+            return calls + " appels : " + resolved + " résolus, " + external + " externes, "
+                    + ambiguous + " ambigus, " + unresolved + " non résolus";
+        }
+    }
+
+    private final Map<String, ClassInfo> byQualifiedName = new HashMap<>();
+    private final Map<String, List<ClassInfo>> bySimpleName = new HashMap<>();
+    private final Map<String, List<Target>> methodsByName = new HashMap<>();
+
+    private static final class Target {
+        final ClassInfo owner;
+        final MethodInfo method;
+        Target(ClassInfo owner, MethodInfo method) { this.owner = owner; this.method = method; }
+    }
+
+    private NameResolver(List<ClassInfo> classes) {
+        for (ClassInfo ci : classes) {
+            byQualifiedName.put(qnOf(ci), ci);
+            bySimpleName.computeIfAbsent(ci.className, k -> new ArrayList<>()).add(ci);
+            for (MethodInfo mi : ci.methods) {
+                methodsByName.computeIfAbsent(mi.name, k -> new ArrayList<>()).add(new Target(ci, mi));
+            }
+        }
+    }
+
+    /**
+     * Résout les appels sans binding de toutes les classes (modifie les {@link MethodCallInfo} en place :
+     * à appeler sur des classes que personne d'autre ne lit, cf. {@link ProjectAnalyzer}).
+     * Peut être relancé sur un modèle déjà résolu : le résultat ne dépend que du modèle.
+     * @param classes
+     * @return
+     */
+    public static Stats resolve(List<ClassInfo> classes) {
+        NameResolver r = new NameResolver(classes);
+        int calls = 0, resolved = 0, external = 0, ambiguous = 0, unresolved = 0;
+        for (ClassInfo ci : classes) {
+            for (MethodInfo mi : ci.methods) {
+                for (MethodCallInfo call : mi.calls) {
+                    if (call.qualifiedSignature != null) continue; // binding présent
+                    calls++;
+                    switch (r.resolveCall(ci, call)) {
+                        case RESOLVED: resolved++; break;
+                        case EXTERNAL: external++; break;
+                        case AMBIGUOUS: ambiguous++; break;
+                        default: unresolved++;
+                    }
+                }
+            }
+        }
+        return new Stats(calls, resolved, external, ambiguous, unresolved);
+    }
+
+    private enum Outcome { RESOLVED, EXTERNAL, AMBIGUOUS, UNRESOLVED }
+
+    private Outcome resolveCall(ClassInfo ctx, MethodCallInfo call) {
+        call.declaringType = null;
+        call.methodKey = null;
+
+        // Type du receveur
+        String recv = null;
+        if (call.receiverStaticType != null) {
+            recv = resolveType(call.receiverStaticType, ctx);
+            if (recv != null && call.receiverExpression != null) recv = fieldPath(recv, call.receiverExpression);
+        } else if (call.receiverExpression != null) {
+            recv = resolveExpression(call.receiverExpression, ctx);
+        }
+
+        if (call.name.equals("<init>")) {
+            if (recv == null) return Outcome.UNRESOLVED;
+            ClassInfo type = byQualifiedName.get(recv);
+            call.declaringType = recv;
+            if (type == null) return Outcome.EXTERNAL;
+            List<MethodInfo> ctors = matching(type, type.className, call.argumentCount);
+            if (ctors.size() > 1) return Outcome.AMBIGUOUS;
+            if (ctors.size() == 1) call.methodKey = ctors.get(0).methodKey;
+            return Outcome.RESOLVED; // constructeur explicite, ou constructeur par défaut
+        }
+
+        if (recv != null) {
+            ClassInfo type = byQualifiedName.get(recv);
+            if (type == null) {
+                call.declaringType = recv;
+                return Outcome.EXTERNAL;
+            }
+            // La classe la plus dérivée qui déclare une méthode compatible l'emporte (redéfinition)
+            Set<ClassInfo> seen = new HashSet<>();
+            for (ClassInfo c = type; c != null && seen.add(c); c = superOf(c)) {
+                List<MethodInfo> found = matching(c, call.name, call.argumentCount);
+                if (found.size() == 1) return bind(call, c, found.get(0));
+                if (found.size() > 1) return Outcome.AMBIGUOUS;
+            }
+            // Méthodes abstraites héritées d'une interface du projet
+            List<Target> fromInterfaces = new ArrayList<>();
+            for (String itf : allInterfaces(type)) {
+                ClassInfo i = byQualifiedName.get(itf);
+                if (i == null) continue;
+                for (MethodInfo m : matching(i, call.name, call.argumentCount)) fromInterfaces.add(new Target(i, m));
+            }
+            if (fromInterfaces.size() == 1) return bind(call, fromInterfaces.get(0).owner, fromInterfaces.get(0).method);
+            if (fromInterfaces.size() > 1) return Outcome.AMBIGUOUS;
+
+            // Appel implicite depuis une classe interne : méthode d'une classe englobante
+            if (type == ctx) {
+                for (String scope = enclosing(qnOf(ctx)); scope != null; scope = enclosing(scope)) {
+                    ClassInfo outer = byQualifiedName.get(scope);
+                    if (outer == null) continue;
+                    List<MethodInfo> found = matching(outer, call.name, call.argumentCount);
+                    if (found.size() == 1) return bind(call, outer, found.get(0));
+                    if (found.size() > 1) return Outcome.AMBIGUOUS;
+                }
+            }
+
+            // Méthode d'une super-classe externe (ex. toString, equals)
+            call.declaringType = recv;
+            return Outcome.EXTERNAL;
+        }
+
+        // Receveur inconnu (appel chaîné...) : cible unique dans tout le projet, sinon ambigu
+        List<Target> candidates = new ArrayList<>();
+        for (Target t : methodsByName.getOrDefault(call.name, Collections.emptyList())) {
+            if (accepts(t.method, call.argumentCount)) candidates.add(t);
+        }
+        if (candidates.size() == 1) return bind(call, candidates.get(0).owner, candidates.get(0).method);
+        return candidates.isEmpty() ? Outcome.UNRESOLVED : Outcome.AMBIGUOUS;
+    }
+
+    private static Outcome bind(MethodCallInfo call, ClassInfo owner, MethodInfo target) {
+        call.declaringType = qnOf(owner);
+        call.methodKey = (target.methodKey != null && target.methodKey.startsWith(NO_BINDING))
+                ? target.methodKey
+                : NO_BINDING + qnOf(owner) + "#" + target.name + "(" + String.join(",", target.parameterTypes) + ")";
+        return Outcome.RESOLVED;
+    }
+
+    /**
+     * Receveur textuel : attribut (de la classe ou d'une super-classe du projet), sinon nom de type.
+     * @return nom qualifié du type, ou null
+     */
+    private String resolveExpression(String expr, ClassInfo ctx) {
+        String head = expr;
+        int dot = expr.indexOf('.');
+        if (dot > 0) {
+            // a.b.C : type qualifié ; sinon a.f : attribut f du type de a
+            String asType = resolveType(expr, ctx);
+            if (asType != null && byQualifiedName.containsKey(asType)) return asType;
+            head = expr.substring(0, dot);
+        }
+
+        String type = null;
+        ClassInfo owner = null;
+        Set<ClassInfo> seen = new HashSet<>();
+        for (ClassInfo c = ctx; c != null && seen.add(c) && type == null; c = superOf(c)) {
+            for (FieldInfo f : c.fields) {
+                if (f.name.equals(head)) {
+                    type = f.type;
+                    owner = c;
+                    break;
+                }
+            }
+        }
+        if (type == null) return (dot > 0) ? null : resolveType(head, ctx);
+
+        String resolved = resolveType(type, owner);
+        return (dot < 0 || resolved == null) ? resolved : fieldPath(resolved, expr.substring(dot + 1));
+    }
+
+    /**
+     * Type au bout d'une chaîne d'attributs (f.g) à partir d'un type du projet.
+     * @return nom qualifié, ou null si un maillon est inconnu
+     */
+    private String fieldPath(String type, String path) {
+        String resolved = type;
+        for (String part : path.split("\\.")) {
+            ClassInfo c = (resolved != null) ? byQualifiedName.get(resolved) : null;
+            if (c == null) return null;
+            String next = null;
+            Set<ClassInfo> seen = new HashSet<>();
+            for (ClassInfo k = c; k != null && seen.add(k) && next == null; k = superOf(k)) {
+                for (FieldInfo f : k.fields) {
+                    if (f.name.equals(part)) next = resolveType(f.type, k);
+                }
+            }
+            resolved = next;
+        }
+        return resolved;
+    }
+
+    /**
+     * Résout un nom de type tel qu'écrit dans le source, dans le contexte d'une classe.
+     * @return nom qualifié (du projet ou externe), ou null (type primitif ou introuvable)
+     */
+    private String resolveType(String written, ClassInfo ctx) {
+        String t = erase(written);
+        if (t.isEmpty() || isPrimitive(t)) return null;
+
+        int dot = t.indexOf('.');
+        if (dot > 0) {
+            if (byQualifiedName.containsKey(t)) return t;
+            // Outer.Inner : Outer résolu comme un nom simple (import, package, classe englobante)
+            String outer = resolveType(t.substring(0, dot), ctx);
+            if (outer != null && byQualifiedName.containsKey(outer + t.substring(dot))) return outer + t.substring(dot);
+            return t;
+        }
+
+        if (t.equals(ctx.className)) return qnOf(ctx);
+        // Type interne de la classe courante ou d'une classe englobante
+        for (String scope = qnOf(ctx); scope != null; scope = enclosing(scope)) {
+            if (byQualifiedName.containsKey(scope + "." + t)) return scope + "." + t;
+        }
+        for (String imp : ctx.imports) {
+            if (!imp.endsWith(".*") && imp.endsWith("." + t)) return imp;
+        }
+        String samePackage = prefixed(ctx.packageName, t);
+        if (byQualifiedName.containsKey(samePackage)) return samePackage;
+        for (String imp : ctx.imports) {
+            if (imp.endsWith(".*")) {
+                String candidate = imp.substring(0, imp.length() - 1) + t;
+                if (byQualifiedName.containsKey(candidate)) return candidate;
+            }
+        }
+        List<ClassInfo> homonyms = bySimpleName.get(t);
+        if (homonyms != null && homonyms.size() == 1) return qnOf(homonyms.get(0)); // classe interne, etc.
+
+        // Hors projet : java.lang ou import à la demande d'une bibliothèque
+        return Character.isUpperCase(t.charAt(0)) ? t : null;
+    }
+
+    private ClassInfo superOf(ClassInfo c) {
+        if (c.superClass == null) return null;
+        String s = resolveType(c.superClass, c);
+        return (s != null) ? byQualifiedName.get(s) : null;
+    }
+
+    private Set<String> allInterfaces(ClassInfo type) {
+        Set<String> out = new LinkedHashSet<>();
+        Deque<ClassInfo> todo = new ArrayDeque<>();
+        Set<ClassInfo> seen = new HashSet<>();
+        todo.add(type);
+        while (!todo.isEmpty()) {
+            ClassInfo c = todo.poll();
+            if (!seen.add(c)) continue;
+            for (String itf : c.interfaces) {
+                String q = resolveType(itf, c);
+                if (q == null || !out.add(q)) continue;
+                ClassInfo i = byQualifiedName.get(q);
+                if (i != null) todo.add(i);
+            }
+            ClassInfo sup = superOf(c);
+            if (sup != null) todo.add(sup);
+        }
+        return out;
+    }
+
+    private static List<MethodInfo> matching(ClassInfo c, String name, int argumentCount) {
+        List<MethodInfo> out = new ArrayList<>();
+        for (MethodInfo m : c.methods) {
+            if (m.name.equals(name) && accepts(m, argumentCount)) out.add(m);
+        }
+        return out;
+    }
+
+    private static boolean accepts(MethodInfo m, int argumentCount) {
+        int n = m.parameterTypes.size();
+        if (n > 0 && m.parameterTypes.get(n - 1).endsWith("...")) return argumentCount >= n - 1;
+        return argumentCount == n;
+    }
+
+    /** Retire arguments génériques et dimensions de tableau. */
+    private static String erase(String type) {
+        int lt = type.indexOf('<');
+        String t = (lt >= 0) ? type.substring(0, lt) : type;
+        int br = t.indexOf('[');
+        if (br >= 0) t = t.substring(0, br);
+        if (t.endsWith("...")) t = t.substring(0, t.length() - 3);
+        return t.trim();
+    }
+
+    private static boolean isPrimitive(String t) {
+        switch (t) {
+            case "int": case "long": case "short": case "byte": case "char":
+            case "boolean": case "float": case "double": case "void":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /** Classe englobante d'après le nom qualifié (a.b.Outer.Inner -> a.b.Outer), ou null. */
+    private String enclosing(String qualifiedName) {
+        int dot = qualifiedName.lastIndexOf('.');
+        if (dot <= 0) return null;
+        String outer = qualifiedName.substring(0, dot);
+        return byQualifiedName.containsKey(outer) ? outer : null;
+    }
+
+    private static String prefixed(String pkg, String name) {
+        return (pkg == null || pkg.isEmpty()) ? name : pkg + "." + name;
+    }
+
+    private static String qnOf(ClassInfo ci) {
+        if (ci.qualifiedName != null && !ci.qualifiedName.isEmpty()) return ci.qualifiedName;
+        if (ci.packageName != null && !ci.packageName.isEmpty()) return ci.packageName + "." + ci.className;
+        return ci.className;
+    }
+}
@@ -0,0 +1,782 @@
+package analysis;
+
+import instrumentation.Instrumentation;
+import model.ClassInfo;
+import model.FieldInfo;
+import model.FileAnalysis;
+import model.FileMetrics;
+import model.MethodCallInfo;
+import model.MethodInfo;
+import model.ProjectModel;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.*;
+import visitors.*;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Moteur d'analyse d'un projet : parse les fichiers sources et en extrait le modèle.
+ * <p>
+ * La liste de fichiers est découpée en shards contigus ; chaque shard est parsé sur son propre thread
+ * avec son propre {@link ASTParser} (un seul {@code createASTs} par shard, donc un environnement
+ * de résolution partagé par toutes les unités du shard). Chaque thread écrit ses résultats
+ * dans des cases disjointes d'un tableau, fusionné sans verrou en un {@link ProjectModel} immuable.
+ * </p>
+ * <p>
+ * Avec une limite d'unités résidentes ({@link #setMaxResidentUnits}), les fichiers passent par une
+ * file bornée en lots de taille limitée : chaque AST est réduit à son {@link FileAnalysis} dès
+ * réception, et un sémaphore empêche d'avoir plus de N unités parsées en mémoire à la fois.
+ * </p>
+ */
+public class ProjectAnalyzer {
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    private final Path root;
+    private final String[] classpath;
+    private final String[] sourcepath;
+    private final int parallelism;
+
+    // true : un seul parcours (ExtractionVisitor) ; false : les quatre visiteurs historiques
+    private boolean fusedExtraction = true;
+
+    // true : un environnement partagé par lot (createASTs) ; false : un parser par fichier (comparaison)
+    private boolean batchParsing = true;
+
+    // false : mode rapide, parse sans bindings puis résolution des appels par nom (NameResolver)
+    private boolean resolveBindings = true;
+    private volatile NameResolver.Stats lastResolution;
+    // résultat de l'extraction -> sa copie résolue à la dernière analyse (identité)
+    private final Map<FileAnalysis, FileAnalysis> resolvedCopies = new IdentityHashMap<>();
+
+    // Nombre max d'unités parsées simultanément (0 = un seul lot par shard, sans limite)
+    private int maxResidentUnits = 0;
+
+    // Mesures de l'ingestion en cours / dernière ingestion
+    private final AtomicInteger resident = new AtomicInteger();
+    private final AtomicInteger residentHighWater = new AtomicInteger();
+    private final AtomicLong heapHighWater = new AtomicLong();
+    private final AtomicInteger batches = new AtomicInteger();
+    private volatile IngestionStats lastIngestion;
+
+    // Mesure par phase et par fichier (null = désactivée)
+    private volatile Instrumentation instrumentation;
+
+    @SuppressWarnings("rawtypes")
+    private final Map compilerOptions;
+
+    /**
+     * @param root racine des sources (pour les noms relatifs)
+     * @param classpath
+     * @param sourcepath
+     * @param parallelism nombre de threads d'analyse (>= 1)
+     */
+    public ProjectAnalyzer(Path root, String[] classpath, String[] sourcepath, int parallelism) {
+        this.root = Objects.requireNonNull(root, "root");
+        this.classpath = (classpath != null) ? classpath : new String[0];
+        this.sourcepath = (sourcepath != null && sourcepath.length > 0)
+                ? sourcepath
+                : new String[]{root.toString()};
+        this.parallelism = Math.max(1, parallelism);
+
+        // JavaCore.getOptions() n'est appelé qu'une fois : chaque parser en reçoit une copie
+        @SuppressWarnings("rawtypes")
+        Map options = JavaCore.getOptions();
+        JavaCore.setComplianceOptions(JavaCore.VERSION_1_7, options); // ou VERSION_1_8 si Java 8
+        this.compilerOptions = options;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Liste les fichiers .java sous une racine.
+     * @param root
+     * @return
+     * @throws IOException
+     */
+    public static List<Path> javaFiles(Path root) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files
+                    .filter(p -> p.toString().endsWith(".java"))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    public void setFusedExtraction(boolean fusedExtraction) {
+        this.fusedExtraction = fusedExtraction;
+    }
+
+    /**
+     * Parsing par lots dans un environnement de résolution partagé (par défaut), ou un parser par
+     * fichier, pour comparer les temps des deux modes sur un même projet.
+     * @param batchParsing
+     */
+    public void setBatchParsing(boolean batchParsing) {
+        this.batchParsing = batchParsing;
+    }
+
+    /**
+     * Active ou non la résolution des bindings. Sans bindings (mode rapide), le parsing est bien
+     * plus rapide et les appels sont résolus ensuite par nom, avec une précision moindre.
+     * @param resolveBindings
+     */
+    public void setResolveBindings(boolean resolveBindings) {
+        this.resolveBindings = resolveBindings;
+    }
+
+    /** Bilan de la résolution par nom de la dernière analyse (null en mode bindings). */
+    public NameResolver.Stats getLastResolutionStats() {
+        return lastResolution;
+    }
+
+    /**
+     * Limite le nombre d'unités parsées présentes en mémoire en même temps.
+     * @param maxResidentUnits nombre max d'ASTs résidents (0 = pas de limite)
+     */
+    public void setMaxResidentUnits(int maxResidentUnits) {
+        this.maxResidentUnits = Math.max(0, maxResidentUnits);
+    }
+
+    /** Mesures de la dernière analyse (null si aucune). */
+    public IngestionStats getLastIngestionStats() {
+        return lastIngestion;
+    }
+
+    /**
+     * Mesure la lecture, le parsing, chaque visiteur et la résolution par nom, par fichier.
+     * @param instrumentation null pour désactiver
+     */
+    public void setInstrumentation(Instrumentation instrumentation) {
+        this.instrumentation = instrumentation;
+    }
+
+    /**
+     * Analyse les fichiers donnés et construit le modèle du projet.
+     * @param files fichiers .java à analyser
+     * @return le modèle, dans l'ordre des fichiers fournis
+     */
+    public ProjectModel analyze(List<Path> files) {
+        return resolveNames(Arrays.asList(analyzeAll(files)));
+    }
+
+    /**
+     * En mode rapide, résout les appels par nom sur une copie des résultats : les {@link FileAnalysis}
+     * du cache et les modèles déjà publiés ne sont jamais modifiés. Un fichier dont les appels se
+     * résolvent comme à l'analyse précédente reprend la même copie (même liste de classes).
+     */
+    @SuppressWarnings("try")
+    private synchronized ProjectModel resolveNames(List<FileAnalysis> results) {
+        if (resolveBindings) {
+            lastResolution = null;
+            resolvedCopies.clear();
+            return ProjectModel.of(results);
+        }
+        FileAnalysis[] copies = new FileAnalysis[results.size()];
+        List<ClassInfo> classes = new ArrayList<>();
+        for (int i = 0; i < copies.length; i++) {
+            if (results.get(i) == null) continue;
+            copies[i] = copyForResolution(results.get(i));
+            classes.addAll(copies[i].classes);
+        }
+        try (Instrumentation.Span s = span(Instrumentation.NAME_RESOLUTION, null)) {
+            lastResolution = NameResolver.resolve(classes);
+        }
+
+        Map<FileAnalysis, FileAnalysis> next = new IdentityHashMap<>();
+        for (int i = 0; i < copies.length; i++) {
+            if (copies[i] == null) continue;
+            FileAnalysis previous = resolvedCopies.get(results.get(i));
+            if (previous != null && sameResolution(previous, copies[i])) copies[i] = previous;
+            next.put(results.get(i), copies[i]);
+        }
+        resolvedCopies.clear();
+        resolvedCopies.putAll(next);
+        return ProjectModel.of(Arrays.asList(copies));
+    }
+
+    /** Copie des classes, méthodes et appels d'un fichier (les autres listes sont partagées, lues seulement). */
+    private static FileAnalysis copyForResolution(FileAnalysis f) {
+        List<ClassInfo> classes = new ArrayList<>(f.classes.size());
+        for (ClassInfo ci : f.classes) {
+            ClassInfo c = new ClassInfo();
+            c.packageName = ci.packageName;
+            c.className = ci.className;
+            c.qualifiedName = ci.qualifiedName;
+            c.typeKey = ci.typeKey;
+            c.isInterface = ci.isInterface;
+            c.isEnum = ci.isEnum;
+            c.superClass = ci.superClass;
+            c.superClassesChain = ci.superClassesChain;
+            c.interfaces = ci.interfaces;
+            c.fields = ci.fields;
+            c.imports = ci.imports;
+            c.methods = new ArrayList<>(ci.methods.size());
+            for (MethodInfo mi : ci.methods) {
+                MethodInfo m = new MethodInfo();
+                m.name = mi.name;
+                m.visibility = mi.visibility;
+                m.returnType = mi.returnType;
+                m.isStatic = mi.isStatic;
+                m.parameterTypes = mi.parameterTypes;
+                m.declaringType = mi.declaringType;
+                m.methodKey = mi.methodKey;
+                m.qualifiedSignature = mi.qualifiedSignature;
+                m.loc = mi.loc;
+                m.parametersCount = mi.parametersCount;
+                m.calls = new ArrayList<>(mi.calls.size());
+                for (MethodCallInfo call : mi.calls) {
+                    MethodCallInfo k = new MethodCallInfo();
+                    k.name = call.name;
+                    k.declaringType = call.declaringType;
+                    k.qualifiedSignature = call.qualifiedSignature;
+                    k.receiverStaticType = call.receiverStaticType;
+                    k.methodKey = call.methodKey;
+                    k.argumentCount = call.argumentCount;
+                    k.line = call.line;
+                    k.receiverExpression = call.receiverExpression;
+                    m.calls.add(k);
+                }
+                c.methods.add(m);
+            }
+            classes.add(c);
+        }
+        return new FileAnalysis(f.path, f.packageName, f.metrics, classes);
+    }
+
+    /** Deux copies d'un même fichier dont tous les appels ont reçu la même cible. */
+    private static boolean sameResolution(FileAnalysis a, FileAnalysis b) {
+        for (int i = 0; i < a.classes.size(); i++) {
+            List<MethodInfo> x = a.classes.get(i).methods, y = b.classes.get(i).methods;
+            for (int j = 0; j < x.size(); j++) {
+                List<MethodCallInfo> p = x.get(j).calls, q = y.get(j).calls;
+                for (int k = 0; k < p.size(); k++) {
+                    if (!Objects.equals(p.get(k).declaringType, q.get(k).declaringType)
+                            || !Objects.equals(p.get(k).methodKey, q.get(k).methodKey)) return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parse et analyse les fichiers, répartis en shards sur {@code parallelism} threads.
+     * @param files
+     * @return un résultat par fichier, dans l'ordre des fichiers fournis
+     */
+    private FileAnalysis[] analyzeAll(List<Path> files) {
+        resident.set(0);
+        residentHighWater.set(0);
+        heapHighWater.set(0);
+        batches.set(0);
+        FileAnalysis[] results = (maxResidentUnits > 0) ? analyzeStreaming(files) : analyzeSharded(files);
+        lastIngestion = new IngestionStats(files.size(), batches.get(), maxResidentUnits,
+                residentHighWater.get(), heapHighWater.get());
+        return results;
+    }
+
+    private FileAnalysis[] analyzeSharded(List<Path> files) {
+        int shards = Math.min(parallelism, files.size());
+        if (shards <= 1) {
+            return analyzeShard(files, 0, files.size());
+        }
+
+        FileAnalysis[] results = new FileAnalysis[files.size()];
+        ExecutorService pool = Executors.newFixedThreadPool(shards, r -> {
+            Thread t = new Thread(r, "ast-shard");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            // Tranches contiguës de tailles égales (à un fichier près) : les fichiers d'un même dossier,
+            // voisins dans la liste, restent dans le même environnement de résolution
+            for (int s = 0; s < shards; s++) {
+                final int from = (int) ((long) files.size() * s / shards);
+                final int to = (int) ((long) files.size() * (s + 1) / shards);
+                futures.add(pool.submit(() -> {
+                    FileAnalysis[] part = analyzeShard(files, from, to);
+                    System.arraycopy(part, 0, results, from, part.length);
+                }));
+            }
+            // Future.get() garantit la visibilité des écritures de chaque shard
+            for (Future<?> f : futures) f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Analyse interrompue", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Echec de l'analyse d'un shard", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * Ingestion bornée : les fichiers sont découpés en lots d'au plus {@code maxResidentUnits / parallelism}
+     * fichiers, déposés dans une file bornée et consommés par {@code parallelism} threads. Un sémaphore
+     * de {@code maxResidentUnits} permis est pris pour chaque unité d'un lot pendant son parsing,
+     * ce qui borne le nombre d'ASTs (et d'environnements de résolution) vivants.
+     * @param files
+     * @return un résultat par fichier, dans l'ordre des fichiers fournis
+     */
+    private FileAnalysis[] analyzeStreaming(List<Path> files) {
+        int n = files.size();
+        FileAnalysis[] results = new FileAnalysis[n];
+        if (n == 0) return results;
+
+        int workers = Math.min(parallelism, n);
+        int batchSize = Math.max(1, Math.min(maxResidentUnits / workers, (n + workers - 1) / workers));
+        Semaphore permits = new Semaphore(maxResidentUnits);
+        BlockingQueue<int[]> queue = new ArrayBlockingQueue<>(workers);
+        int[] end = new int[0];
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "ast-ingest");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                futures.add(pool.submit(() -> {
+                    for (int[] range = queue.take(); range != end; range = queue.take()) {
+                        // Fichiers contigus : ceux d'un même package partagent souvent leurs dépendances
+                        String[] paths = new String[range[1] - range[0]];
+                        for (int k = 0; k < paths.length; k++) {
+                            paths[k] = files.get(range[0] + k).toAbsolutePath().toString();
+                        }
+                        permits.acquire(paths.length);
+                        try {
+                            FileAnalysis[] part = analyzeBatch(paths);
+                            System.arraycopy(part, 0, results, range[0], part.length);
+                        } finally {
+                            permits.release(paths.length);
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            // Producteur : bloque tant que les lots précédents ne sont pas pris (contre-pression)
+            for (int from = 0; from < n; from += batchSize) {
+                int[] range = {from, Math.min(n, from + batchSize)};
+                while (!queue.offer(range, 100, TimeUnit.MILLISECONDS)) {
+                    failFast(futures);
+                }
+            }
+            for (int w = 0; w < workers; w++) {
+                while (!queue.offer(end, 100, TimeUnit.MILLISECONDS)) {
+                    failFast(futures);
+                }
+            }
+            for (Future<?> f : futures) f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Analyse interrompue", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Echec de l'analyse d'un lot", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return results;
+    }
+
+    /** Remonte l'erreur d'un consommateur arrêté (sinon le producteur attendrait indéfiniment). */
+    private static void failFast(List<Future<?>> futures) throws ExecutionException, InterruptedException {
+        for (Future<?> f : futures) {
+            if (f.isDone()) f.get();
+        }
+    }
+
+    /** Résultat d'une analyse incrémentale : le modèle et ce qui a été réutilisé ou recalculé. */
+    public static final class IncrementalResult {
+        public final ProjectModel model;
+        public final int reused;       // fichiers repris du cache
+        public final int changed;      // fichiers nouveaux ou modifiés
+        public final int dependents;   // fichiers inchangés reparsés car ils dépendent d'un fichier modifié
+        public final int removed;      // fichiers disparus depuis la dernière analyse
+
+        IncrementalResult(ProjectModel model, int reused, int changed, int dependents, int removed) {
+            this.model = model;
+            this.reused = reused;
+            this.changed = changed;
+            this.dependents = dependents;
+            this.removed = removed;
+        }
+    }
+
+    /**
+     * Analyse incrémentale : les fichiers dont le contenu et l'environnement n'ont pas changé sont
+     * repris du cache ; seuls les fichiers modifiés et ceux qui référencent leurs types sont reparsés.
+     * @param files fichiers .java du projet
+     * @param cache cache persistant (mis à jour)
+     * @return
+     */
+    public IncrementalResult analyze(List<Path> files, AnalysisCache cache) {
+        return analyze(files, null, cache);
+    }
+
+    /**
+     * Analyse incrémentale après des modifications connues (mode watch) : seuls les fichiers de
+     * {@code touched} sont relus et hachés ; les autres sont repris du cache sans lecture s'ils y
+     * figurent avec le même environnement.
+     * @param files fichiers .java du projet
+     * @param touched fichiers créés ou modifiés (mêmes chemins que dans {@code files}), ou null pour tout relire
+     * @param cache cache persistant (mis à jour)
+     * @return
+     */
+    @SuppressWarnings("try")
+    public IncrementalResult analyze(List<Path> files, Set<Path> touched, AnalysisCache cache) {
+        String fingerprint = environmentFingerprint();
+
+        int n = files.size();
+        String[] names = new String[n];
+        String[] hashes = new String[n];
+        FileAnalysis[] results = new FileAnalysis[n];
+        Set<String> changedTypes = new HashSet<>();
+        BitSet toParse = new BitSet(n);
+
+        for (int i = 0; i < n; i++) {
+            names[i] = relativeName(files.get(i).toAbsolutePath().toString());
+            if (touched != null && !touched.contains(files.get(i))) {
+                AnalysisCache.Entry e = cache.previous(names[i]);
+                if (e != null && e.fingerprint.equals(fingerprint)) {
+                    hashes[i] = e.contentHash;
+                    results[i] = e.analysis;
+                    continue;
+                }
+            }
+            try (Instrumentation.Span s = span(Instrumentation.READ, names[i])) {
+                hashes[i] = AnalysisCache.hash(Files.readAllBytes(files.get(i)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            AnalysisCache.Entry e = cache.lookup(names[i], hashes[i], fingerprint);
+            if (e != null) {
+                results[i] = e.analysis;
+            } else {
+                toParse.set(i);
+            }
+        }
+        int changed = toParse.cardinality();
+
+        // Fichiers supprimés depuis la dernière analyse
+        Set<String> present = new HashSet<>(Arrays.asList(names));
+        int removed = 0;
+        for (String path : cache.paths()) {
+            if (present.contains(path)) continue;
+            AnalysisCache.Entry old = cache.previous(path);
+            if (old != null) changedTypes.addAll(old.declaredTypes);
+            cache.remove(path);
+            removed++;
+        }
+
+        // Reparse par vagues : fichiers modifiés, puis ceux qui référencent un type modifié,
+        // jusqu'à ce qu'aucun nouveau dépendant n'apparaisse (hiérarchies transitives)
+        BitSet parsed = new BitSet(n);
+        while (true) {
+            for (int i = 0; i < n; i++) {
+                if (toParse.get(i) || parsed.get(i) || results[i] == null) continue;
+                AnalysisCache.Entry e = cache.previous(names[i]);
+                if (e != null && !Collections.disjoint(e.referencedTypes, changedTypes)) toParse.set(i);
+            }
+            toParse.andNot(parsed);
+            if (toParse.isEmpty()) break;
+
+            List<Path> batch = new ArrayList<>();
+            List<Integer> indices = new ArrayList<>();
+            for (int i = toParse.nextSetBit(0); i >= 0; i = toParse.nextSetBit(i + 1)) {
+                batch.add(files.get(i));
+                indices.add(i);
+            }
+            FileAnalysis[] fresh = analyzeAll(batch);
+            for (int k = 0; k < fresh.length; k++) {
+                int i = indices.get(k);
+                // Les dépendants ne voient que les déclarations (types, hiérarchie, signatures) :
+                // un fichier dont seuls les corps de méthodes ont changé ne propage rien
+                AnalysisCache.Entry old = cache.previous(names[i]);
+                boolean propagate = old == null || !sameDeclarations(old.analysis, fresh[k]);
+                if (propagate && old != null) changedTypes.addAll(old.declaredTypes);
+                results[i] = fresh[k];
+                cache.put(names[i], hashes[i], fingerprint, fresh[k]);
+                if (propagate) changedTypes.addAll(cache.previous(names[i]).declaredTypes);
+            }
+            parsed.or(toParse);
+            toParse.clear();
+        }
+
+        int reparsed = parsed.cardinality();
+        return new IncrementalResult(resolveNames(Arrays.asList(results)),
+                n - reparsed, changed, reparsed - changed, removed);
+    }
+
+    /** Compare la partie "déclarations" de deux résultats (sans les appels ni les LOC). */
+    private static boolean sameDeclarations(FileAnalysis a, FileAnalysis b) {
+        if (a.classes.size() != b.classes.size()) return false;
+        for (int i = 0; i < a.classes.size(); i++) {
+            ClassInfo x = a.classes.get(i), y = b.classes.get(i);
+            if (!Objects.equals(x.typeKey, y.typeKey) || !Objects.equals(x.qualifiedName, y.qualifiedName)
+                    || !Objects.equals(x.superClass, y.superClass) || x.isInterface != y.isInterface
+                    || !x.superClassesChain.equals(y.superClassesChain) || !x.interfaces.equals(y.interfaces)
+                    || !sameFields(x.fields, y.fields)
+                    || x.methods.size() != y.methods.size()) return false;
+            for (int j = 0; j < x.methods.size(); j++) {
+                MethodInfo m = x.methods.get(j), n = y.methods.get(j);
+                if (!Objects.equals(m.methodKey, n.methodKey) || !Objects.equals(m.qualifiedSignature, n.qualifiedSignature)
+                        || !Objects.equals(m.visibility, n.visibility) || !Objects.equals(m.returnType, n.returnType)
+                        || !m.parameterTypes.equals(n.parameterTypes)) return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameFields(List<FieldInfo> a, List<FieldInfo> b) {
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            FieldInfo f = a.get(i), g = b.get(i);
+            if (!Objects.equals(f.name, g.name) || !Objects.equals(f.type, g.type)
+                    || !Objects.equals(f.visibility, g.visibility)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Empreinte de l'environnement d'analyse : classpath (chemins, tailles, dates), sourcepath
+     * et options. Un résultat en cache n'est réutilisé que si elle est identique.
+     * @return
+     */
+    public String environmentFingerprint() {
+        StringBuilder sb = new StringBuilder("v6|JLS4|1.7|fused=").append(fusedExtraction)
+                .append("|bindings=").append(resolveBindings);
+        for (String cp : classpath) {
+            sb.append("|cp:").append(cp);
+            try {
+                Path p = Paths.get(cp);
+                if (Files.exists(p)) sb.append(':').append(Files.size(p)).append(':').append(Files.getLastModifiedTime(p).toMillis());
+            } catch (IOException | InvalidPathException ignored) {}
+        }
+        for (String sp : sourcepath) sb.append("|sp:").append(sp);
+        return AnalysisCache.hash(sb.toString());
+    }
+
+    /**
+     * Analyse un seul fichier à partir de son contenu (un parser dédié).
+     * @param unitName chemin relatif du fichier
+     * @param source contenu du fichier
+     * @return
+     */
+    @SuppressWarnings("try")
+    public FileAnalysis analyzeFile(String unitName, String source) {
+        ASTParser parser = newParser();
+        // JDT attend le chemin complet de l'unité pour la rattacher au sourcepath
+        parser.setUnitName((unitName != null && !unitName.isEmpty())
+                ? root.toAbsolutePath().resolve(unitName).toString()
+                : "Unit.java");
+        parser.setSource(source.toCharArray());
+
+        CompilationUnit cu;
+        try (Instrumentation.Span s = span(Instrumentation.PARSE, unitName)) {
+            cu = (CompilationUnit) parser.createAST(null);
+        }
+        return extract(unitName, source.length(), cu);
+    }
+
+    /**
+     * Parse les fichiers d'indice {@code from} à {@code to} exclu en un seul appel à
+     * {@link ASTParser#createASTs} : l'environnement de résolution est partagé par tout le shard.
+     * @return les résultats du shard, dans l'ordre de ses fichiers
+     */
+    private FileAnalysis[] analyzeShard(List<Path> files, int from, int to) {
+        String[] paths = new String[to - from];
+        for (int i = from; i < to; i++) {
+            paths[i - from] = files.get(i).toAbsolutePath().toString();
+        }
+        return analyzeBatch(paths);
+    }
+
+    /**
+     * Parse un lot de fichiers en un seul appel à {@link ASTParser#createASTs} (un par un sans
+     * parsing par lots). Chaque AST est réduit à son {@link FileAnalysis} dès réception et n'est plus
+     * référencé ensuite.
+     * @param paths chemins absolus
+     * @return les résultats, dans l'ordre des chemins
+     */
+    @SuppressWarnings("try")
+    private FileAnalysis[] analyzeBatch(String[] paths) {
+        int n = paths.length;
+        String[] encodings = new String[n];
+        Map<String, Integer> indexOf = new HashMap<>();
+        for (int k = 0; k < n; k++) {
+            encodings[k] = "UTF-8";
+            indexOf.put(paths[k], k);
+        }
+        batches.incrementAndGet();
+        residentHighWater.accumulateAndGet(resident.addAndGet(n), Math::max);
+
+        // Les ASTs peuvent arriver dans un ordre différent : on les range par indice
+        FileAnalysis[] out = new FileAnalysis[n];
+
+        // JDT rend chaque unité après l'avoir résolue : le temps écoulé depuis l'unité précédente
+        // (ou le début du lot, qui inclut le parsing syntaxique de tout le lot) est compté à celle-ci
+        Instrumentation inst = instrumentation;
+        Instrumentation.Snapshot[] last = {inst != null ? Instrumentation.snapshot() : null};
+
+        if (batchParsing) {
+            ASTParser parser = newParser();
+            parser.createASTs(paths, encodings, new String[0], new FileASTRequestor() {
+                @Override
+                public void acceptAST(String sourceFilePath, CompilationUnit cu) {
+                    Integer k = indexOf.get(sourceFilePath);
+                    if (k == null) return;
+                    heapHighWater.accumulateAndGet(MEMORY.getHeapMemoryUsage().getUsed(), Math::max);
+                    String unitName = relativeName(sourceFilePath);
+                    if (inst != null) inst.record(Instrumentation.PARSE, unitName, last[0]);
+                    out[k] = extract(unitName, cu.getLength(), cu);
+                    if (inst != null) last[0] = Instrumentation.snapshot();
+                }
+            }, null);
+        }
+
+        // Si la compilation avorte sur une unité, JDT n'envoie plus rien pour le reste du lot :
+        // les fichiers manquants sont reparsés un par un (tous, sans parsing par lots)
+        try {
+            for (int k = 0; k < n; k++) {
+                if (out[k] != null) continue;
+                String unitName = relativeName(paths[k]);
+                String source;
+                try (Instrumentation.Span s = span(Instrumentation.READ, unitName)) {
+                    source = read(paths[k]);
+                }
+                out[k] = analyzeFile(unitName, source);
+            }
+        } finally {
+            resident.addAndGet(-n);
+        }
+        return out;
+    }
+
+    /**
+     * Passe les visiteurs sur une unité déjà parsée.
+     * @param unitName chemin relatif du fichier
+     * @param sourceLength taille du source en caractères
+     * @param cu
+     * @return
+     */
+    private FileAnalysis extract(String unitName, int sourceLength, CompilationUnit cu) {
+
+        // Table des lignes : seule trace du source conservée après l'analyse
+        FileMetrics lines = FileMetrics.of(unitName, cu, sourceLength);
+
+        String packageName = null;
+        PackageDeclaration packageDeclaration = cu.getPackage();
+        if (packageDeclaration != null) {
+            packageName = packageDeclaration.getName().getFullyQualifiedName();
+        }
+
+        // Les visiteurs historiques rattachent tout par clé de binding : sans bindings, un seul parcours
+        return new FileAnalysis(unitName, packageName, lines,
+                extractClasses(cu, lines, fusedExtraction || !resolveBindings, instrumentation, unitName));
+    }
+
+    /** Démarre une mesure si l'instrumentation est active (null sinon, accepté par try-with-resources). */
+    private Instrumentation.Span span(String phase, String file) {
+        Instrumentation inst = instrumentation;
+        return (inst != null) ? inst.begin(phase, file) : null;
+    }
+
+    /**
+     * Extrait les classes d'une unité, en un parcours ou avec les quatre visiteurs historiques.
+     * @param cu
+     * @param lines table des lignes de l'unité
+     * @param fused
+     * @param inst mesure de chaque visiteur (ou null)
+     * @param unitName fichier auquel les mesures sont rattachées
+     * @return
+     */
+    static List<ClassInfo> extractClasses(CompilationUnit cu, FileMetrics lines, boolean fused,
+                                          Instrumentation inst, String unitName) {
+        if (fused) {
+            ExtractionVisitor v = new ExtractionVisitor(cu, lines);
+            accept(cu, v, inst, unitName);
+            return new ArrayList<>(v.getClassesByKey().values());
+        }
+
+        ClassDeclVisitor v1 = new ClassDeclVisitor();
+        accept(cu, v1, inst, unitName);
+        Map<String, ClassInfo> classesByKey = v1.getClassesByKey();
+
+        FieldVisitor v2 = new FieldVisitor(classesByKey);
+        accept(cu, v2, inst, unitName);
+
+        MethodDeclVisitor v3 = new MethodDeclVisitor(classesByKey, lines);
+        accept(cu, v3, inst, unitName);
+        Map<String, MethodInfo> methodsByKey = v3.getMethodsByKey();
+
+        CallVisitor v4 = new CallVisitor(classesByKey, methodsByKey);
+        accept(cu, v4, inst, unitName);
+
+        return new ArrayList<>(classesByKey.values());
+    }
+
+    @SuppressWarnings("try")
+    private static void accept(CompilationUnit cu, ASTVisitor v, Instrumentation inst, String unitName) {
+        if (inst == null) {
+            cu.accept(v);
+            return;
+        }
+        try (Instrumentation.Span s = inst.begin(Instrumentation.visit(v.getClass()), unitName)) {
+            cu.accept(v);
+        }
+    }
+
+    /**
+     * Crée un parser configuré (bindings selon le mode, options de compilation, environnement).
+     * Un parser n'est jamais partagé entre threads.
+     * @return
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    ASTParser newParser() {
+        ASTParser parser = ASTParser.newParser(AST.JLS4);
+        parser.setKind(ASTParser.K_COMPILATION_UNIT);
+        parser.setResolveBindings(resolveBindings);
+        parser.setBindingsRecovery(resolveBindings);
+        parser.setCompilerOptions(new HashMap(compilerOptions));
+
+        String[] enc = new String[sourcepath.length];
+        Arrays.fill(enc, "UTF-8");
+        parser.setEnvironment(classpath, sourcepath, enc, true);
+        return parser;
+    }
+
+    private static String read(String path) {
+        try {
+            return Files.readString(Paths.get(path), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String relativeName(String absolutePath) {
+        return root.toAbsolutePath().relativize(Paths.get(absolutePath)).toString().replace('\\', '/');
+    }
+}
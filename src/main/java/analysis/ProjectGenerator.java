@@ -0,0 +1,236 @@
+package analysis;
+
+import metrics.CallGraphBuilder;
+import metrics.CouplingMatrix;
+import metrics.HierarchicalClustering;
+import metrics.ModuleIdentifier;
+import metrics.ModuleRecovery;
+import model.ProjectModel;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Génère un projet Java synthétique compilable (sans dépendance) pour les tests de charge :
+ * nombre de packages, de classes, de méthodes par classe, d'appels par méthode, profondeur
+ * d'héritage et groupes de couplage réglables.
+ * <p>
+ * Les classes sont réparties en {@code clusters} modules plantés : chaque appel vise une classe
+ * du même module avec la probabilité {@code intraRatio}. La partition plantée est écrite dans
+ * {@code planted-modules.csv} pour mesurer ce que {@link ModuleIdentifier} en retrouve.
+ * </p>
+ * <p>
+ * Usage : {@code ProjectGenerator --out <dossier> [--classes n] [--packages n] [--methods n]
+ * [--fan-out n] [--depth n] [--clusters n] [--intra x] [--seed n] [--evaluate]}
+ * </p>
+ */
+public final class ProjectGenerator {
+
+    public static final String PLANTED_FILE = "planted-modules.csv";
+
+    /** Paramètres de génération. */
+    public static final class Config {
+        public int classes = 1000;
+        public int packages = 40;
+        public int methodsPerClass = 6;
+        public int fanOut = 3;             // appels par méthode
+        public int inheritanceDepth = 2;   // longueur max des chaînes extends dans un module (0 = aucune)
+        public int clusters = 20;          // modules plantés
+        public double intraRatio = 0.9;    // part des appels vers le même module
+        public long seed = 42L;
+        public String basePackage = "gen";
+    }
+
+    private ProjectGenerator() {}
+
+    /**
+     * Écrit les sources sous {@code out/src} et la partition plantée dans {@code out/planted-modules.csv}.
+     * @param c
+     * @param out
+     * @return nom qualifié de classe -> module planté
+     * @throws IOException
+     */
+    public static Map<String, Integer> generate(Config c, Path out) throws IOException {
+        if (c.classes < 1 || c.packages < 1 || c.clusters < 1 || c.methodsPerClass < 1 || c.fanOut < 0
+                || c.inheritanceDepth < 0 || c.intraRatio < 0 || c.intraRatio > 1) {
+            throw new IllegalArgumentException("Paramètres de génération invalides");
+        }
+        int n = c.classes;
+        int clusters = Math.min(c.clusters, n);
+        int packages = Math.min(c.packages, n);
+        Random rnd = new Random(c.seed);
+        Path src = out.resolve("src");
+
+        Map<String, Integer> planted = new LinkedHashMap<>();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            int cluster = clusterOf(i, n, clusters);
+            String pkg = packageName(c, i, n, packages);
+            String name = className(i);
+
+            // Héritage : la classe précédente du même module, tant que la chaîne n'est pas trop longue
+            int offset = i - clusterStart(cluster, n, clusters);
+            String superClass = (c.inheritanceDepth > 0 && offset % (c.inheritanceDepth + 1) != 0)
+                    ? packageName(c, i - 1, n, packages) + "." + className(i - 1)
+                    : null;
+
+            sb.setLength(0);
+            sb.append("package ").append(pkg).append(";\n\n");
+            sb.append("public class ").append(name);
+            if (superClass != null) sb.append(" extends ").append(superClass);
+            sb.append(" {\n");
+            for (int m = 0; m < c.methodsPerClass; m++) {
+                sb.append("\n    public int m").append(m).append("(int x) {\n");
+                sb.append("        int r = x;\n");
+                for (int k = 0; k < c.fanOut; k++) {
+                    int target;
+                    if (rnd.nextDouble() < c.intraRatio) {
+                        int start = clusterStart(cluster, n, clusters);
+                        target = start + rnd.nextInt(clusterStart(cluster + 1, n, clusters) - start);
+                    } else {
+                        target = rnd.nextInt(n);
+                    }
+                    sb.append("        r += new ").append(packageName(c, target, n, packages)).append('.')
+                            .append(className(target)).append("().m").append(rnd.nextInt(c.methodsPerClass))
+                            .append("(r);\n");
+                }
+                sb.append("        return r;\n");
+                sb.append("    }\n");
+            }
+            sb.append("}\n");
+
+            Path file = src.resolve(pkg.replace('.', '/')).resolve(name + ".java");
+            Files.createDirectories(file.getParent());
+            Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+            planted.put(pkg + "." + name, cluster);
+        }
+
+        try (BufferedWriter w = Files.newBufferedWriter(out.resolve(PLANTED_FILE), StandardCharsets.UTF_8)) {
+            w.write("class,module\n");
+            for (Map.Entry<String, Integer> e : planted.entrySet()) {
+                w.write(e.getKey() + "," + e.getValue() + "\n");
+            }
+        }
+        return planted;
+    }
+
+    /**
+     * Relit une partition plantée.
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static Map<String, Integer> readPlanted(Path file) throws IOException {
+        Map<String, Integer> planted = new LinkedHashMap<>();
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        for (String line : lines.subList(Math.min(1, lines.size()), lines.size())) {
+            int comma = line.lastIndexOf(',');
+            if (comma > 0) planted.put(line.substring(0, comma), Integer.parseInt(line.substring(comma + 1).trim()));
+        }
+        return planted;
+    }
+
+    // Classes contiguës par module et par package
+    private static int clusterOf(int i, int n, int clusters) {
+        return (int) ((long) i * clusters / n);
+    }
+
+    private static int clusterStart(int cluster, int n, int clusters) {
+        return (int) (((long) cluster * n + clusters - 1) / clusters);
+    }
+
+    private static String packageName(Config c, int i, int n, int packages) {
+        return c.basePackage + ".p" + ((long) i * packages / n);
+    }
+
+    private static String className(int i) {
+        return "C" + i;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Config c = new Config();
+        Path out = null;
+        boolean evaluate = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String a = args[i];
+                if (a.equals("--evaluate")) {
+                    evaluate = true;
+                    continue;
+                }
+                if (i + 1 >= args.length) throw new IllegalArgumentException("Valeur manquante après " + a);
+                String v = args[++i];
+                switch (a) {
+                    case "--out": out = Paths.get(v); break;
+                    case "--classes": c.classes = Integer.parseInt(v); break;
+                    case "--packages": c.packages = Integer.parseInt(v); break;
+                    case "--methods": c.methodsPerClass = Integer.parseInt(v); break;
+                    case "--fan-out": c.fanOut = Integer.parseInt(v); break;
+                    case "--depth": c.inheritanceDepth = Integer.parseInt(v); break;
+                    case "--clusters": c.clusters = Integer.parseInt(v); break;
+                    case "--intra": c.intraRatio = Double.parseDouble(v); break;
+                    case "--seed": c.seed = Long.parseLong(v); break;
+                    default: throw new IllegalArgumentException("Option inconnue : " + a);
+                }
+            }
+            if (out == null) throw new IllegalArgumentException("--out est requis");
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage : ProjectGenerator --out <dossier> [--classes n] [--packages n] [--methods n]"
+                    + " [--fan-out n] [--depth n] [--clusters n] [--intra x] [--seed n] [--evaluate]");
+            System.exit(2);
+            return;
+        }
+
+        long t0 = System.nanoTime();
+        Map<String, Integer> planted = generate(c, out);
+        System.out.println(planted.size() + " classes générées dans " + out.resolve("src") + " en "
+                + (System.nanoTime() - t0) / 1_000_000 + " ms");
+        if (evaluate) evaluate(out.resolve("src"), planted);
+    }
+
+    /**
+     * Analyse le projet généré (pipeline complet) et compare les modules identifiés aux modules plantés.
+     * @param src
+     * @param planted
+     * @throws IOException
+     */
+    static void evaluate(Path src, Map<String, Integer> planted) throws IOException {
+        long t0 = System.nanoTime();
+        ProjectAnalyzer analyzer = new ProjectAnalyzer(src, new String[0], new String[]{src.toString()},
+                Runtime.getRuntime().availableProcessors());
+        ProjectModel model = analyzer.analyze(ProjectAnalyzer.javaFiles(src));
+        long t1 = System.nanoTime();
+
+        CallGraphBuilder.DiGraph<String> g = CallGraphBuilder.buildMethodGraph(model.symbols(), true,
+                CallGraphBuilder.Dispatch.STATIC);
+        HierarchicalClustering.Coupling couplingFn = CouplingMatrix.of(model.symbols(), g, false);
+        HierarchicalClustering.Node root = HierarchicalClustering.cluster(model.classes, couplingFn, HierarchicalClustering.Linkage.AVERAGE);
+        long t2 = System.nanoTime();
+
+        // Seuil : couplage moyen attendu au sein d'un module planté, divisé par deux
+        double cp = 0.5 * expectedIntraCoupling(planted);
+        ModuleIdentifier.Result modules = ModuleIdentifier.identify(root, couplingFn, cp);
+        long t3 = System.nanoTime();
+
+        System.out.printf(Locale.ROOT, "Analyse %d ms, graphe + clustering %d ms, modules %d ms (CP = %.5f)%n",
+                (t1 - t0) / 1_000_000, (t2 - t1) / 1_000_000, (t3 - t2) / 1_000_000, cp);
+        System.out.println("Modules retrouvés : " + ModuleRecovery.score(planted, modules)
+                + (modules.feasible ? "" : " [contraintes non satisfaites]"));
+    }
+
+    /** Ordre de grandeur du couplage d'une paire au sein d'un module planté (1 / paires du module). */
+    private static double expectedIntraCoupling(Map<String, Integer> planted) {
+        Map<Integer, Integer> sizes = new HashMap<>();
+        for (int m : planted.values()) sizes.merge(m, 1, Integer::sum);
+        double avgSize = (double) planted.size() / Math.max(1, sizes.size());
+        double pairsPerModule = Math.max(1, avgSize * (avgSize - 1) / 2);
+        // part des arêtes d'un module dans le graphe, répartie sur ses paires
+        return 1.0 / Math.max(1, sizes.size()) / pairsPerModule;
+    }
+}
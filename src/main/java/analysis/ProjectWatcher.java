@@ -0,0 +1,171 @@
+package analysis;
+
+import model.ProjectModel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Mode "watch" : surveille la racine des sources et relance l'analyse incrémentale en arrière-plan
+ * à chaque modification d'un fichier .java. Le nouveau modèle est transmis au listener
+ * (appelé sur le thread du watcher, jamais sur l'EDT).
+ * <p>
+ * Un modèle transmis n'est plus jamais modifié : les analyses suivantes ne font que lire les
+ * résultats du cache, et la résolution par nom du mode rapide travaille sur des copies. Le listener
+ * peut donc le publier vers un autre thread (EDT) pendant que la réanalyse suivante tourne.
+ * </p>
+ * <p>
+ * L'arborescence n'est parcourue qu'au démarrage (et après un débordement de la file d'événements) :
+ * ensuite la liste des fichiers suit les événements, et seuls les fichiers créés ou modifiés sont
+ * relus et hachés.
+ * </p>
+ */
+public class ProjectWatcher implements Closeable {
+
+    // Temps de calme attendu après un événement avant de relancer l'analyse (sauvegardes en rafale)
+    private static final long DEBOUNCE_MS = 100;
+
+    private final ProjectAnalyzer analyzer;
+    private final AnalysisCache cache;
+    private final Consumer<ProjectModel> listener;
+
+    private WatchService watchService;
+    private Thread thread;
+
+    // Accédés seulement par le thread du watcher (après start)
+    private final Set<Path> files = new LinkedHashSet<>();   // fichiers .java connus, ordre de découverte
+    private final Set<Path> touched = new HashSet<>();       // créés ou modifiés depuis la dernière analyse
+    private boolean rescan;                                  // événements perdus : tout relister et relire
+
+    public ProjectWatcher(ProjectAnalyzer analyzer, AnalysisCache cache, Consumer<ProjectModel> listener) {
+        this.analyzer = Objects.requireNonNull(analyzer, "analyzer");
+        this.cache = Objects.requireNonNull(cache, "cache");
+        this.listener = Objects.requireNonNull(listener, "listener");
+    }
+
+    /**
+     * Enregistre l'arborescence des sources et démarre le thread de surveillance.
+     * @throws IOException
+     */
+    public synchronized void start() throws IOException {
+        if (thread != null) return;
+        watchService = analyzer.getRoot().getFileSystem().newWatchService();
+        registerAll(analyzer.getRoot());
+        files.addAll(ProjectAnalyzer.javaFiles(analyzer.getRoot()));
+
+        thread = new Thread(this::loop, "project-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (thread != null) thread.interrupt();
+        if (watchService != null) watchService.close();
+        thread = null;
+    }
+
+    private void loop() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                long firstEvent = System.nanoTime();
+                boolean changed = drain(key);
+
+                // Regroupe les événements qui arrivent en rafale
+                WatchKey next;
+                while ((next = watchService.poll(DEBOUNCE_MS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= drain(next);
+                }
+                if (changed) reanalyze(firstEvent);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // arrêt demandé
+        }
+    }
+
+    /**
+     * Consomme les événements d'une clé : met à jour la liste des fichiers, note les fichiers à
+     * relire et enregistre les nouveaux dossiers.
+     * @return true si un fichier .java (ou un dossier) a changé
+     */
+    private boolean drain(WatchKey key) {
+        boolean changed = false;
+        Path dir = (Path) key.watchable();
+        for (WatchEvent<?> ev : key.pollEvents()) {
+            if (ev.kind() == OVERFLOW) {
+                rescan = true;
+                changed = true;
+                continue;
+            }
+            Path child = dir.resolve((Path) ev.context());
+            if (ev.kind() == ENTRY_CREATE && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                try {
+                    registerAll(child);
+                    for (Path f : ProjectAnalyzer.javaFiles(child)) touch(f);
+                } catch (IOException e) {
+                    System.err.println("Watch : impossible de surveiller " + child + " (" + e.getMessage() + ")");
+                    rescan = true;
+                }
+                changed = true;
+            } else if (ev.kind() == ENTRY_DELETE) {
+                // fichier, ou dossier entier : tout ce qui était dessous disparaît
+                changed |= files.removeIf(f -> f.startsWith(child));
+                touched.removeIf(f -> f.startsWith(child));
+            } else if (child.toString().endsWith(".java")) {
+                touch(child);
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void touch(Path file) {
+        files.add(file);
+        touched.add(file);
+    }
+
+    /**
+     * @param firstEvent instant de réception du premier événement de la rafale (nanoTime)
+     */
+    private void reanalyze(long firstEvent) {
+        long t0 = System.nanoTime();
+        try {
+            if (rescan) {
+                files.clear();
+                files.addAll(ProjectAnalyzer.javaFiles(analyzer.getRoot()));
+            }
+            // fichier modifié puis supprimé dans la même rafale
+            files.removeIf(f -> touched.contains(f) && !Files.exists(f));
+            ProjectAnalyzer.IncrementalResult r = analyzer.analyze(new ArrayList<>(files),
+                    rescan ? null : touched, cache);
+            rescan = false;
+            touched.clear();
+            if (r.changed == 0 && r.dependents == 0 && r.removed == 0) return; // contenu identique
+            System.out.println("Watch : " + r.changed + " modifiés, " + r.dependents + " dépendants, "
+                    + r.removed + " supprimés, analyse " + (System.nanoTime() - t0) / 1_000_000
+                    + " ms, " + (System.nanoTime() - firstEvent) / 1_000_000 + " ms depuis l'événement");
+            listener.accept(r.model);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Watch : échec de la réanalyse (" + e.getMessage() + ")");
+        }
+    }
+
+    private void registerAll(Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
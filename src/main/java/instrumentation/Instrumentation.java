@@ -0,0 +1,203 @@
+package instrumentation;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mesure des phases du pipeline : temps réel, temps CPU et octets alloués, par phase et par fichier.
+ * Chaque mesure est faite sur le thread qui exécute la phase (CPU et allocations du thread courant),
+ * puis cumulée ; elle émet aussi un {@link PhaseEvent} JFR.
+ * <p>
+ * Usage : {@code try (Instrumentation.Span s = inst.begin("callGraph")) { ... }}
+ * </p>
+ */
+public final class Instrumentation {
+
+    // Noms des phases
+    public static final String READ = "read";
+    public static final String PARSE = "parse";
+    public static final String NAME_RESOLUTION = "nameResolution";
+    public static final String CALL_GRAPH = "callGraph";
+    public static final String COUPLING = "coupling";
+    public static final String CLUSTERING = "clustering";
+    public static final String MODULES = "modules";
+    public static final String REACHABILITY = "reachability";
+    public static final String CYCLES = "cycles";
+
+    /** Préfixe des phases de visite ("visit:ExtractionVisitor", ...). */
+    public static String visit(Class<?> visitor) {
+        return "visit:" + visitor.getSimpleName();
+    }
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final com.sun.management.ThreadMXBean ALLOC =
+            (THREADS instanceof com.sun.management.ThreadMXBean) ? (com.sun.management.ThreadMXBean) THREADS : null;
+
+    /** Cumuls d'une phase ou d'un fichier. */
+    public static final class Totals {
+        final LongAdder count = new LongAdder();
+        final LongAdder wallNanos = new LongAdder();
+        final LongAdder cpuNanos = new LongAdder();
+        final LongAdder allocatedBytes = new LongAdder();
+
+        public long count() { return count.sum(); }
+        public long wallNanos() { return wallNanos.sum(); }
+        public long cpuNanos() { return cpuNanos.sum(); }
+        public long allocatedBytes() { return allocatedBytes.sum(); }
+
+        void add(long wall, long cpu, long alloc) {
+            count.increment();
+            wallNanos.add(wall);
+            cpuNanos.add(cpu);
+            allocatedBytes.add(alloc);
+        }
+    }
+
+    // Ordre d'apparition des phases conservé pour le tableau
+    private final Map<String, Totals> phases = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Map<String, Totals> files = new ConcurrentHashMap<>();
+
+    /** Point de départ d'une mesure sur le thread courant. */
+    public static final class Snapshot {
+        final long wall = System.nanoTime();
+        final long cpu = cpuNow();
+        final long alloc = allocatedNow();
+    }
+
+    /** Mesure en cours ; l'arrêter avec {@link #close()}. */
+    public final class Span implements AutoCloseable {
+        private final String phase;
+        private final String file;
+        private final Snapshot start = new Snapshot();
+        private final PhaseEvent event = new PhaseEvent();
+
+        Span(String phase, String file) {
+            this.phase = phase;
+            this.file = file;
+            event.begin();
+        }
+
+        @Override
+        public void close() {
+            event.end();
+            record(phase, file, start, event);
+        }
+    }
+
+    public Span begin(String phase) {
+        return new Span(phase, null);
+    }
+
+    /**
+     * Démarre la mesure d'une phase pour un fichier.
+     * @param phase
+     * @param file chemin relatif (ou null)
+     * @return
+     */
+    public Span begin(String phase, String file) {
+        return new Span(phase, file);
+    }
+
+    public static Snapshot snapshot() {
+        return new Snapshot();
+    }
+
+    /**
+     * Enregistre une phase mesurée depuis {@code start} sur le thread courant
+     * (quand la phase ne tient pas dans un bloc, ex. entre deux rappels de JDT).
+     * @param phase
+     * @param file
+     * @param start
+     */
+    public void record(String phase, String file, Snapshot start) {
+        record(phase, file, start, null);
+    }
+
+    private void record(String phase, String file, Snapshot start, PhaseEvent event) {
+        long wall = System.nanoTime() - start.wall;
+        long cpu = (start.cpu >= 0) ? cpuNow() - start.cpu : 0;
+        long alloc = (start.alloc >= 0) ? allocatedNow() - start.alloc : 0;
+
+        phases.computeIfAbsent(phase, k -> new Totals()).add(wall, cpu, alloc);
+        if (file != null) files.computeIfAbsent(file, k -> new Totals()).add(wall, cpu, alloc);
+
+        // Mesure hors bloc : l'événement est émis à la fin, sa durée réelle est dans wallTime
+        if (event == null) event = new PhaseEvent();
+        if (event.shouldCommit()) {
+            event.phase = phase;
+            event.file = file;
+            event.wallTime = wall;
+            event.cpuTime = cpu;
+            event.allocated = alloc;
+            event.commit();
+        }
+    }
+
+    /** Cumuls par phase, dans l'ordre d'apparition. */
+    public Map<String, Totals> phases() {
+        synchronized (phases) {
+            return new LinkedHashMap<>(phases);
+        }
+    }
+
+    /** Cumuls par fichier (toutes phases confondues). */
+    public Map<String, Totals> files() {
+        return new HashMap<>(files);
+    }
+
+    /** Durée réelle cumulée de chaque phase, en millisecondes. */
+    public Map<String, Long> wallMillis() {
+        Map<String, Long> out = new LinkedHashMap<>();
+        phases().forEach((k, t) -> out.put(k, t.wallNanos() / 1_000_000));
+        return out;
+    }
+
+    /**
+     * Affiche le tableau récapitulatif : une ligne par phase, puis les fichiers les plus coûteux.
+     * @param out
+     * @param topFiles nombre de fichiers listés
+     */
+    public void printSummary(PrintStream out, int topFiles) {
+        out.println(String.format(Locale.ROOT, "%-28s %8s %12s %12s %12s", "Phase", "Appels", "Réel (ms)", "CPU (ms)", "Alloué (Mo)"));
+        long wall = 0, cpu = 0, alloc = 0;
+        for (Map.Entry<String, Totals> e : phases().entrySet()) {
+            Totals t = e.getValue();
+            out.println(row(e.getKey(), t.count(), t.wallNanos(), t.cpuNanos(), t.allocatedBytes()));
+            wall += t.wallNanos();
+            cpu += t.cpuNanos();
+            alloc += t.allocatedBytes();
+        }
+        out.println(row("total (cumulé)", -1, wall, cpu, alloc));
+
+        if (topFiles <= 0 || files.isEmpty()) return;
+        out.println();
+        out.println(String.format(Locale.ROOT, "%-28s %8s %12s %12s %12s", "Fichier (top " + topFiles + ")", "Phases", "Réel (ms)", "CPU (ms)", "Alloué (Mo)"));
+        files().entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().wallNanos(), a.getValue().wallNanos()))
+                .limit(topFiles)
+                .forEach(e -> {
+                    Totals t = e.getValue();
+                    out.println(row(e.getKey(), t.count(), t.wallNanos(), t.cpuNanos(), t.allocatedBytes()));
+                });
+    }
+
+    private static String row(String name, long count, long wall, long cpu, long alloc) {
+        if (name.length() > 28) name = "…" + name.substring(name.length() - 27);
+        return String.format(Locale.ROOT, "%-28s %8s %12.1f %12.1f %12.1f", name, count >= 0 ? String.valueOf(count) : "",
+                wall / 1e6, cpu / 1e6, alloc / (1024.0 * 1024.0));
+    }
+
+    private static long cpuNow() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static long allocatedNow() {
+        return (ALLOC != null && ALLOC.isThreadAllocatedMemorySupported())
+                ? ALLOC.getThreadAllocatedBytes(Thread.currentThread().getId())
+                : -1;
+    }
+}
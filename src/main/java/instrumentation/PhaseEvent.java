@@ -0,0 +1,33 @@
+package instrumentation;
+
+import jdk.jfr.*;
+
+/**
+ * Événement JFR émis pour chaque phase mesurée (visible dans JDK Mission Control
+ * sous "HAI913I / Phase" lorsqu'un enregistrement JFR est actif).
+ */
+@Name("hai913i.Phase")
+@Label("Phase d'analyse")
+@Category({"HAI913I"})
+@Description("Durée, temps CPU et octets alloués d'une phase du pipeline (éventuellement pour un fichier)")
+@StackTrace(false)
+public class PhaseEvent extends Event {
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Fichier")
+    public String file;
+
+    @Label("Temps réel")
+    @Timespan(Timespan.NANOSECONDS)
+    public long wallTime;
+
+    @Label("Temps CPU")
+    @Timespan(Timespan.NANOSECONDS)
+    public long cpuTime;
+
+    @Label("Octets alloués")
+    @DataAmount
+    public long allocated;
+}
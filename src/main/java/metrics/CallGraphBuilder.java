@@ -3,10 +3,11 @@ package metrics;
 import model.ClassInfo;
 import model.MethodInfo;
 import model.MethodCallInfo;
+import model.SymbolTable;
+import model.TypeHierarchy;
 
 import java.util.*;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 /**
  * Construit des graphes d'appel (méthode->méthode et classe->classe)
@@ -14,22 +15,46 @@ import java.util.stream.Collectors;
  */
 public class CallGraphBuilder {
 
+    /**
+     * Résolution des appels virtuels :
+     * STATIC = type déclarant seul (comportement historique) ;
+     * CHA = toutes les redéfinitions dans les sous-types du receveur statique (class hierarchy analysis) ;
+     * RTA = idem, restreint aux classes instanciées quelque part dans le projet (rapid type analysis),
+     * code mort compris : pas de point fixe sur l'accessibilité ; tout appel de constructeur compte,
+     * y compris super(...), qui marque une classe parente abstraite comme instanciée.
+     */
+    public enum Dispatch { STATIC, CHA, RTA }
+
     public static class DiGraph<N> {
         private final Set<N> nodes = new LinkedHashSet<>();
         private final Map<N, Set<N>> adj = new LinkedHashMap<>();
+        private int version;  // incrémenté à chaque modification (invalide les index dérivés)
 
         public void addNode(N n) {
             if (nodes.add(n)) {
                 adj.put(n, new LinkedHashSet<>());
+                version++;
             }
         }
         public void addEdge(N from, N to) {
             addNode(from);
             addNode(to);
-            adj.get(from).add(to);
+            if (adj.get(from).add(to)) version++;
+        }
+        public void removeEdge(N from, N to) {
+            Set<N> out = adj.get(from);
+            if (out != null && out.remove(to)) version++;
+        }
+        /** Retire un noeud et ses arcs sortants (les arcs entrants doivent avoir été retirés). */
+        public void removeNode(N n) {
+            if (nodes.remove(n)) {
+                adj.remove(n);
+                version++;
+            }
         }
         public Set<N> nodes() { return nodes; }
         public Map<N, Set<N>> edges() { return adj; }
+        public int version() { return version; }
 
         // helpers
         private String id(N n) { return "n" + Integer.toHexString(System.identityHashCode(n)); }
@@ -41,96 +66,371 @@ public class CallGraphBuilder {
      * Construit le graphe d'appel au niveau méthode en utilisant les classes de données en paramètres
      * @param classes
      * @param includeExternal
-     * @return
+     * @return vue {@link DiGraph} (lecture seule) d'un {@link CsrGraph}
      */
     public static DiGraph<String> buildMethodGraph(List<ClassInfo> classes, boolean includeExternal) {
-        // Index des méthodes du projet par signature qualifiée si dispo, sinon par "FQN#name(params)"
-        Map<String, String> projectMethodKeys = new LinkedHashMap<>(); // key -> display
-        Map<String, String> displayByKey      = new LinkedHashMap<>();
-
-        for (ClassInfo ci : classes) {
-            String owner = qnOf(ci);
-            for (MethodInfo mi : ci.methods) {
-                String key = methodKey(mi, owner);
-                String display = displaySig(mi, owner);
-                projectMethodKeys.put(key, display);
-                displayByKey.put(key, display);
-            }
-        }
+        return buildMethodCsr(classes, includeExternal).asDiGraph();
+    }
 
-        DiGraph<String> g = new DiGraph<>();
+    /**
+     * Graphe d'appel au niveau méthode, appels virtuels résolus selon {@code dispatch}.
+     * @param classes
+     * @param includeExternal
+     * @param dispatch
+     * @return vue {@link DiGraph} (lecture seule) d'un {@link CsrGraph}
+     */
+    public static DiGraph<String> buildMethodGraph(List<ClassInfo> classes, boolean includeExternal, Dispatch dispatch) {
+        return buildMethodCsr(classes, includeExternal, dispatch).asDiGraph();
+    }
 
-        // Ajouter tous les noeuds "projet"
-        for (String disp : projectMethodKeys.values()) g.addNode(disp);
+    /**
+     * Graphe d'appel au niveau méthode des classes d'une table de symboles (celle du modèle).
+     * @param symbols
+     * @param includeExternal
+     * @param dispatch
+     * @return vue {@link DiGraph} (lecture seule) d'un {@link CsrGraph}
+     */
+    public static DiGraph<String> buildMethodGraph(SymbolTable symbols, boolean includeExternal, Dispatch dispatch) {
+        return buildMethodCsr(symbols, includeExternal, dispatch).asDiGraph();
+    }
 
-        // Arêtes
-        for (ClassInfo ci : classes) {
-            String owner = qnOf(ci);
-            for (MethodInfo src : ci.methods) {
-                String srcKey = methodKey(src, owner);
-                String srcDisp = displayByKey.get(srcKey);
-                if (srcDisp == null) continue; // sécurité
-
-                if (src.calls == null) continue;
-                for (MethodCallInfo call : src.calls) {
-                    // Résoudre le callee
-                    String calleeKey = calledMethodKey(call);
-                    String calleeDisp;
+    /**
+     * Graphe d'appel au niveau méthode, au format CSR.
+     * @param classes
+     * @param includeExternal
+     * @return
+     */
+    public static CsrGraph buildMethodCsr(List<ClassInfo> classes, boolean includeExternal) {
+        return buildMethodCsr(classes, includeExternal, Dispatch.STATIC);
+    }
 
-                    if (calleeKey != null && projectMethodKeys.containsKey(calleeKey)) {
-                        // Méthode cible appartient au projet (binding/clé reconnue)
-                        calleeDisp = projectMethodKeys.get(calleeKey);
-                    } else {
-                        if (!includeExternal) continue;
-                        // External: construire un libellé raisonnable
-                        String targetOwner = (call.declaringType != null ? call.declaringType : call.receiverStaticType);
-                        String sig = (call.qualifiedSignature != null)
-                                ? call.qualifiedSignature
-                                : (targetOwner != null ? targetOwner + "." + call.name + "(...)" : call.name + "(...)");
-                        calleeDisp = "[EXT] " + sig;
-                    }
+    /**
+     * Graphe d'appel au niveau méthode, au format CSR. Avec CHA/RTA, chaque appel virtuel garde son arc
+     * vers la cible statique et reçoit un arc vers chaque redéfinition possible.
+     * @param classes
+     * @param includeExternal
+     * @param dispatch
+     * @return
+     */
+    public static CsrGraph buildMethodCsr(List<ClassInfo> classes, boolean includeExternal, Dispatch dispatch) {
+        return buildMethodCsr(SymbolTable.of(classes), includeExternal, dispatch);
+    }
+
+    /**
+     * Graphe d'appel au niveau méthode, au format CSR, des classes d'une table de symboles.
+     * @param st
+     * @param includeExternal
+     * @param dispatch
+     * @return
+     */
+    public static CsrGraph buildMethodCsr(SymbolTable st, boolean includeExternal, Dispatch dispatch) {
+        // Méthodes du projet indexées par clé globale (binding si dispo, sinon "FQN#name(params)")
+        int m = st.methodCount();
 
-                    g.addEdge(srcDisp, calleeDisp);
+        MethodNode[] described = describedMethods(st);
+
+        // Ajouter tous les noeuds "projet", dans l'ordre d'apparition des clés
+        CsrGraph.Builder g = new CsrGraph.Builder();
+        for (int k = 0; k < m; k++) {
+            if (described[k] != null) g.addNode(described[k]);
+        }
+        int[] nodeOfMethod = new int[m];
+        for (int k = 0; k < m; k++) {
+            nodeOfMethod[k] = g.addNode(described[st.methodId(st.methodKey(k))]);
+        }
+
+        // Arêtes
+        for (int src = 0; src < m; src++) {
+            MethodInfo mi = st.method(src);
+            if (mi.calls == null) continue;
+            int from = nodeOfMethod[src];
+            for (MethodCallInfo call : mi.calls) {
+                // Résoudre le callee
+                String calleeKey = calledMethodKey(call);
+                int callee = (calleeKey != null) ? st.methodId(calleeKey) : -1;
+                int to;
+                if (callee >= 0) {
+                    // Méthode cible appartient au projet (binding/clé reconnue)
+                    to = nodeOfMethod[callee];
+                } else {
+                    if (!includeExternal) continue;
+                    to = g.addNode(MethodNode.external(call));
                 }
+                // Un arc par appel : le builder fusionne en comptant la multiplicité et garde la ligne
+                g.addEdge(from, to, call.line);
             }
         }
 
-        return g;
+        if (dispatch != Dispatch.STATIC) {
+            VirtualTargets vt = new VirtualTargets(st, dispatch == Dispatch.RTA);
+            for (int src = 0; src < m; src++) {
+                MethodInfo mi = st.method(src);
+                if (mi.calls == null) continue;
+                for (MethodCallInfo call : mi.calls) {
+                    String calleeKey = calledMethodKey(call);
+                    int callee = (calleeKey != null) ? st.methodId(calleeKey) : -1;
+                    int staticTarget = (callee >= 0) ? nodeOfMethod[callee] : -1;
+                    for (int t : vt.of(call, callee)) {
+                        if (nodeOfMethod[t] != staticTarget) g.addEdge(nodeOfMethod[src], nodeOfMethod[t], call.line);
+                    }
+                }
+            }
+        }
+        return g.build();
     }
 
     /**
      * Construit le graphe d'appel au niveau classe
      * @param classes
      * @param includeExternal
-     * @return
+     * @return vue {@link DiGraph} (lecture seule) d'un {@link CsrGraph}
      */
     public static DiGraph<String> buildClassGraph(List<ClassInfo> classes, boolean includeExternal) {
-        Set<String> projectClasses = classes.stream().map(CallGraphBuilder::qnOf).collect(Collectors.toCollection(LinkedHashSet::new));
-        DiGraph<String> g = new DiGraph<>();
-        for (String c : projectClasses) g.addNode(c);
+        return buildClassCsr(classes, includeExternal).asDiGraph();
+    }
 
-        for (ClassInfo ci : classes) {
-            String from = qnOf(ci);
-            for (MethodInfo mi : ci.methods) {
+    /**
+     * Graphe d'appel au niveau classe, au format CSR.
+     * @param classes
+     * @param includeExternal
+     * @return
+     */
+    public static CsrGraph buildClassCsr(List<ClassInfo> classes, boolean includeExternal) {
+        SymbolTable st = SymbolTable.of(classes);
+        CsrGraph.Builder g = new CsrGraph.Builder();
+        for (int id = 0; id < st.nameCount(); id++) g.addNode(st.name(id));
+
+        for (int i = 0; i < st.classCount(); i++) {
+            int from = st.nameOf(i);
+            for (MethodInfo mi : classes.get(i).methods) {
                 if (mi.calls == null) continue;
                 for (MethodCallInfo call : mi.calls) {
                     String target = (call.declaringType != null) ? call.declaringType : call.receiverStaticType;
                     if (target == null) continue;
-                    if (!projectClasses.contains(target)) {
+                    int to = st.nameId(target);
+                    if (to < 0) {
                         if (!includeExternal) continue;
-                        target = "[EXT] " + target;
+                        to = g.addNode("[EXT] " + target);
                     }
-                    if (!from.equals(target)) {
-                        g.addEdge(from, target);
+                    if (from != to) {
+                        g.addEdge(from, to, call.line);
                     }
                 }
             }
         }
-        return g;
+        return g.build();
+    }
+
+    /**
+     * Graphe de dépendances entre packages, déduit du graphe classe->classe : un arc p->q pour chaque
+     * appel d'une classe de p vers une classe de q (p != q), multiplicité et sites conservés.
+     * Les classes externes sont regroupées par préfixe ("[EXT] java.util").
+     * @param classes
+     * @param includeExternal
+     * @return
+     */
+    public static CsrGraph buildPackageCsr(List<ClassInfo> classes, boolean includeExternal) {
+        CsrGraph cg = buildClassCsr(classes, includeExternal);
+        Map<String, String> packageOf = new HashMap<>();
+        for (ClassInfo ci : classes) packageOf.putIfAbsent(qnOf(ci), packageLabel(ci.packageName));
+
+        CsrGraph.Builder g = new CsrGraph.Builder();
+        int[] node = new int[cg.nodeCount()];
+        for (int v = 0; v < cg.nodeCount(); v++) {
+            String label = cg.label(v);
+            String pkg = packageOf.get(label);
+            if (pkg == null) {
+                String type = label.startsWith("[EXT] ") ? label.substring("[EXT] ".length()) : label;
+                int dot = type.lastIndexOf('.');
+                pkg = "[EXT] " + (dot > 0 ? type.substring(0, dot) : packageLabel(null));
+            }
+            node[v] = g.addNode(pkg);
+        }
+        for (int v = 0; v < cg.nodeCount(); v++) {
+            for (int e = cg.outBegin(v); e < cg.outEnd(v); e++) {
+                int from = node[v], to = node[cg.target(e)];
+                if (from == to) continue;
+                if (cg.hasSites()) {
+                    for (int i = cg.siteBegin(e); i < cg.siteEnd(e); i++) g.addEdge(from, to, cg.site(i));
+                } else {
+                    for (int k = 0; k < cg.weight(e); k++) g.addEdge(from, to);
+                }
+            }
+        }
+        return g.build();
+    }
+
+    /**
+     * Noeud de chaque méthode du projet (numérotation {@link SymbolTable}) dans un graphe construit par
+     * {@link #buildMethodCsr} sur les mêmes classes ; -1 si le libellé est absent du graphe.
+     * @param st
+     * @param methodGraph
+     * @return
+     */
+    static int[] methodNodes(SymbolTable st, CsrGraph methodGraph) {
+        MethodNode[] described = describedMethods(st);
+        int[] nodes = new int[st.methodCount()];
+        for (int k = 0; k < nodes.length; k++) nodes[k] = methodGraph.nodeId(described[st.methodId(st.methodKey(k))].label());
+        return nodes;
+    }
+
+    /**
+     * Cibles possibles d'un appel virtuel, calculées sur {@link TypeHierarchy} et mémorisées par
+     * (type receveur, signature) : les sous-types du receveur sont lus dans un bitset, puis chacun
+     * est remonté jusqu'à la classe qui déclare la méthode.
+     */
+    private static final class VirtualTargets {
+        private static final int[] NONE = new int[0];
+
+        private final SymbolTable st;
+        private final TypeHierarchy h;
+        private final boolean[] instantiated;               // RTA, null pour CHA
+        private final List<Map<String, Integer>> bySig;     // type -> signature normalisée -> méthode
+        private final List<Map<String, Integer>> byArity;   // type -> "nom/arité" -> méthode (-1 si ambiguë)
+        private final Map<String, int[]> cache = new HashMap<>();
+
+        VirtualTargets(SymbolTable symbols, boolean rta) {
+            st = symbols;
+            h = TypeHierarchy.of(symbols);
+            bySig = new ArrayList<>(h.typeCount());
+            byArity = new ArrayList<>(h.typeCount());
+            for (int t = 0; t < h.typeCount(); t++) {
+                Map<String, Integer> sigs = new HashMap<>();
+                Map<String, Integer> arities = new HashMap<>();
+                int ci = h.classOf(t);
+                if (ci >= 0) {
+                    for (int k = st.firstMethod(ci); k < st.firstMethod(ci + 1); k++) {
+                        MethodInfo mi = st.method(k);
+                        if (mi.isStatic || "private".equals(mi.visibility)) continue;
+                        sigs.putIfAbsent(normalizedSig(mi.name, mi.parameterTypes), k);
+                        String ar = mi.name + "/" + mi.parameterTypes.size();
+                        arities.put(ar, arities.containsKey(ar) ? -1 : k);
+                    }
+                }
+                bySig.add(sigs);
+                byArity.add(arities);
+            }
+
+            if (rta) {
+                instantiated = new boolean[h.typeCount()];
+                for (ClassInfo ci : st.classes) {
+                    for (MethodInfo mi : ci.methods) {
+                        if (mi.calls == null) continue;
+                        for (MethodCallInfo call : mi.calls) {
+                            if (!"<init>".equals(call.name)) continue;
+                            int t = h.typeId(call.declaringType != null ? call.declaringType : call.receiverStaticType);
+                            if (t >= 0) instantiated[t] = true;
+                        }
+                    }
+                }
+            } else {
+                instantiated = null;
+            }
+        }
+
+        /** Méthodes pouvant être exécutées par l'appel ({@code callee} = cible statique du projet, ou -1). */
+        int[] of(MethodCallInfo call, int callee) {
+            if (call.name == null || "<init>".equals(call.name)) return NONE;
+            int declaring;
+            String sig;
+            if (callee >= 0) {
+                MethodInfo target = st.method(callee);
+                if (target.isStatic || "private".equals(target.visibility)) return NONE;
+                declaring = st.nameOf(st.ownerOf(callee));
+                sig = normalizedSig(target.name, target.parameterTypes);
+            } else {
+                // Méthode externe (ex. Runnable.run) : seules ses redéfinitions du projet nous intéressent
+                declaring = h.typeId(call.declaringType);
+                if (declaring < 0 || h.isProjectType(declaring) || call.qualifiedSignature == null) return NONE;
+                sig = sigOf(call.qualifiedSignature);
+                if (sig == null) return NONE;
+            }
+            // Receveur statique plus précis que le type déclarant s'il en est un sous-type
+            int recv = h.typeId(call.receiverStaticType);
+            if (recv < 0 || !h.isSubtype(recv, declaring)) recv = declaring;
+
+            String key = recv + "#" + sig + "#" + call.argumentCount;
+            int[] targets = cache.get(key);
+            if (targets == null) {
+                targets = compute(recv, sig, call.name, call.argumentCount);
+                cache.put(key, targets);
+            }
+            return targets;
+        }
+
+        private int[] compute(int recv, String sig, String name, int arity) {
+            Set<Integer> out = new LinkedHashSet<>();
+            for (int s : h.subtypeIds(recv)) {
+                if (!h.isProjectType(s) || h.isInterface(s)) continue;
+                if (instantiated != null && !instantiated[s]) continue;
+                // Implémentation héritée : première classe déclarante en remontant les super-classes
+                for (int t = s; t >= 0 && h.isProjectType(t); t = h.superClass(t)) {
+                    Integer k = bySig.get(t).get(sig);
+                    if (k == null) {
+                        // Paramètres génériques (T vs Object) : repli sur nom + arité si non ambigu
+                        Integer a = byArity.get(t).get(name + "/" + arity);
+                        if (a != null && a >= 0) k = a;
+                    }
+                    if (k != null) {
+                        out.add(k);
+                        break;
+                    }
+                }
+            }
+            int[] r = new int[out.size()];
+            int i = 0;
+            for (int k : out) r[i++] = k;
+            return r;
+        }
+    }
+
+    /** "name(T1,T2)" avec des noms de types simples, sans arguments génériques. */
+    private static String normalizedSig(String name, List<String> parameterTypes) {
+        StringBuilder sb = new StringBuilder(name).append('(');
+        for (int i = 0; i < parameterTypes.size(); i++) {
+            if (i > 0) sb.append(',');
+            sb.append(simpleType(parameterTypes.get(i)));
+        }
+        return sb.append(')').toString();
+    }
+
+    /** Signature normalisée d'une signature qualifiée "Owner.m(T1,T2)->R", ou null. */
+    private static String sigOf(String qualifiedSignature) {
+        int open = qualifiedSignature.indexOf('(');
+        int close = qualifiedSignature.indexOf(')', open);
+        if (open <= 0 || close < 0) return null;
+        String name = qualifiedSignature.substring(qualifiedSignature.lastIndexOf('.', open) + 1, open);
+        String params = qualifiedSignature.substring(open + 1, close);
+        return normalizedSig(name, params.isEmpty() ? Collections.<String>emptyList() : Arrays.asList(params.split(",")));
+    }
+
+    private static String simpleType(String type) {
+        String t = type.trim();
+        int lt = t.indexOf('<');
+        if (lt >= 0) {
+            int gt = t.lastIndexOf('>');
+            t = t.substring(0, lt) + (gt >= 0 ? t.substring(gt + 1) : "");
+        }
+        t = t.replace("...", "[]");
+        int dot = t.lastIndexOf('.');
+        return (dot >= 0) ? t.substring(dot + 1) : t;
     }
 
     // -------------------- helpers --------------------
 
+    private static String packageLabel(String packageName) {
+        return (packageName == null || packageName.isEmpty()) ? "(default)" : packageName;
+    }
+
+    /** Noeud de chaque clé de méthode : celui de la dernière méthode qui la porte. */
+    private static MethodNode[] describedMethods(SymbolTable st) {
+        MethodNode[] described = new MethodNode[st.methodCount()];
+        for (int k = 0; k < described.length; k++) {
+            described[st.methodId(st.methodKey(k))] = MethodNode.of(st.method(k), st.name(st.nameOf(st.ownerOf(k))));
+        }
+        return described;
+    }
+
     /**
      * Retourne le qualified Name de la classe
      * @param ci
@@ -142,38 +442,19 @@ public class CallGraphBuilder {
         return ci.className;
     }
 
-    /**
-     * Clé "globale" d’une méthode du projet (préférence au methodKey/binding)
-     * @param mi
-     * @param ownerQN
-     * @return
-     */
-    private static String methodKey(MethodInfo mi, String ownerQN) {
-        if (mi.methodKey != null && !mi.methodKey.startsWith("NO_BINDING:")) return mi.methodKey;
-        // fallback stable
-        return ownerQN + "#" + simpleSig(mi);
-    }
-
     /**
      * Tente de reconstituer une clé de méthode appelée (via binding s’il existe)
      * @param call
      * @return
      */
-    private static String calledMethodKey(MethodCallInfo call) {
+    static String calledMethodKey(MethodCallInfo call) {
         if (call.methodKey != null && !call.methodKey.startsWith("NO_BINDING:")) return call.methodKey;
+        // appel résolu par nom (mode sans bindings) : même forme que la clé de repli des méthodes
+        if (call.methodKey != null) return call.methodKey.substring("NO_BINDING:".length());
         if (call.qualifiedSignature != null) return call.qualifiedSignature; // Owner.m(T1,T2)->R
         if (call.declaringType != null && call.name != null) {
             return call.declaringType + "." + call.name + "(?)";
         }
         return null;
     }
-
-    private static String simpleSig(MethodInfo m) {
-        String params = (m.parameterTypes == null) ? "" : String.join(",", m.parameterTypes);
-        return m.name + "(" + params + ")";
-    }
-
-    private static String displaySig(MethodInfo m, String ownerQN) {
-        return ownerQN + "." + simpleSig(m);
-    }
 }
\ No newline at end of file
@@ -0,0 +1,145 @@
+package metrics;
+
+import java.util.*;
+
+/**
+ * Requêtes sur un graphe d'appels {@link CsrGraph} : appelants directs (lecture des arcs entrants,
+ * sans parcours du graphe), appelants transitifs jusqu'à une profondeur donnée et plus court chemin
+ * d'appel entre deux noeuds. Parcours en largeur sur tableaux d'entiers : le coût d'une requête est
+ * proportionnel à la partie du graphe atteinte, pas à sa taille.
+ */
+public final class CallGraphQuery {
+
+    private CallGraphQuery() {}
+
+    /** Noeuds atteints par une requête, avec leur distance au noeud de départ (ordre de parcours). */
+    public static final class Hits {
+        public final int[] nodes;
+        public final int[] depths;
+
+        Hits(int[] nodes, int[] depths) {
+            this.nodes = nodes;
+            this.depths = depths;
+        }
+
+        public int size() {
+            return nodes.length;
+        }
+    }
+
+    /**
+     * Appelants directs d'un noeud.
+     * @param g
+     * @param v
+     * @return numéros des noeuds appelants, dans l'ordre des arcs entrants
+     */
+    public static int[] callers(CsrGraph g, int v) {
+        int[] out = new int[g.inDegree(v)];
+        for (int e = g.inBegin(v), k = 0; e < g.inEnd(v); e++, k++) out[k] = g.source(e);
+        return out;
+    }
+
+    /**
+     * Appelés directs d'un noeud.
+     * @param g
+     * @param v
+     * @return
+     */
+    public static int[] callees(CsrGraph g, int v) {
+        int[] out = new int[g.outDegree(v)];
+        for (int e = g.outBegin(v), k = 0; e < g.outEnd(v); e++, k++) out[k] = g.target(e);
+        return out;
+    }
+
+    /**
+     * Appelants transitifs (analyse d'impact) : noeuds depuis lesquels {@code v} est atteignable
+     * en au plus {@code maxDepth} appels.
+     * @param g
+     * @param v
+     * @param maxDepth profondeur max (1 = appelants directs ; &lt;= 0 = sans limite)
+     * @return sans le noeud de départ
+     */
+    public static Hits callersUpTo(CsrGraph g, int v, int maxDepth) {
+        return bfs(g, v, maxDepth, true);
+    }
+
+    /**
+     * Appelés transitifs : noeuds atteignables depuis {@code v} en au plus {@code maxDepth} appels.
+     * @param g
+     * @param v
+     * @param maxDepth profondeur max (&lt;= 0 = sans limite)
+     * @return sans le noeud de départ
+     */
+    public static Hits calleesUpTo(CsrGraph g, int v, int maxDepth) {
+        return bfs(g, v, maxDepth, false);
+    }
+
+    /**
+     * Plus court chemin d'appel de {@code from} à {@code to}.
+     * @param g
+     * @param from
+     * @param to
+     * @return les noeuds du chemin (extrémités comprises), ou un tableau vide s'il n'y en a pas
+     */
+    public static int[] shortestPath(CsrGraph g, int from, int to) {
+        if (from == to) return new int[]{from};
+        int n = g.nodeCount();
+        int[] parent = new int[n];
+        Arrays.fill(parent, -1);
+        parent[from] = from;
+        int[] queue = new int[n];
+        int head = 0, tail = 0;
+        queue[tail++] = from;
+        while (head < tail) {
+            int u = queue[head++];
+            for (int e = g.outBegin(u); e < g.outEnd(u); e++) {
+                int w = g.target(e);
+                if (parent[w] >= 0) continue;
+                parent[w] = u;
+                if (w == to) {
+                    int len = 1;
+                    for (int x = to; x != from; x = parent[x]) len++;
+                    int[] path = new int[len];
+                    for (int x = to, k = len - 1; k >= 0; x = parent[x], k--) path[k] = x;
+                    return path;
+                }
+                queue[tail++] = w;
+            }
+        }
+        return new int[0];
+    }
+
+    /** Libellés d'une liste de noeuds. */
+    public static List<String> labels(CsrGraph g, int[] nodes) {
+        List<String> out = new ArrayList<>(nodes.length);
+        for (int v : nodes) out.add(g.label(v));
+        return out;
+    }
+
+    private static Hits bfs(CsrGraph g, int start, int maxDepth, boolean reverse) {
+        int n = g.nodeCount();
+        int limit = (maxDepth <= 0) ? Integer.MAX_VALUE : maxDepth;
+        int[] depth = new int[n];
+        Arrays.fill(depth, -1);
+        depth[start] = 0;
+        int[] queue = new int[n];
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        while (head < tail) {
+            int u = queue[head++];
+            if (depth[u] >= limit) continue;
+            int begin = reverse ? g.inBegin(u) : g.outBegin(u);
+            int end = reverse ? g.inEnd(u) : g.outEnd(u);
+            for (int e = begin; e < end; e++) {
+                int w = reverse ? g.source(e) : g.target(e);
+                if (depth[w] >= 0) continue;
+                depth[w] = depth[u] + 1;
+                queue[tail++] = w;
+            }
+        }
+        int[] nodes = Arrays.copyOfRange(queue, 1, tail);
+        int[] depths = new int[nodes.length];
+        for (int k = 0; k < nodes.length; k++) depths[k] = depth[nodes[k]];
+        return new Hits(nodes, depths);
+    }
+}
@@ -1,6 +1,7 @@
 package metrics;
 
 import model.ClassInfo;
+import model.SymbolTable;
 import java.util.*;
 
 public final class CouplingGraphBuilder {
@@ -11,6 +12,7 @@ public final class CouplingGraphBuilder {
     public static final class WeightedGraph<N> {
         private final Set<N> nodes = new LinkedHashSet<>();
         private final Map<N, Map<N, Double>> w = new LinkedHashMap<>();
+        private CouplingMatrix matrix;
         public void addNode(N n){ if (nodes.add(n)) w.put(n, new LinkedHashMap<>()); }
         public void addEdgeUndirected(N a, N b, double weight){
             if (a==null || b==null || a.equals(b) || weight<=0) return;
@@ -20,10 +22,12 @@ public final class CouplingGraphBuilder {
         }
         public Set<N> nodes(){ return nodes; }
         public Map<N, Map<N, Double>> edges(){ return w; }
+        /** Matrice de couplage dont le graphe est issu (null si construit à la main). */
+        public CouplingMatrix matrix(){ return matrix; }
     }
 
     /**
-     * Construit le graphe de couplage pondéré en appelant calculateCoupling pour chaque couple (A,B).
+     * Construit le graphe de couplage pondéré : mêmes poids que calculateCoupling pour chaque couple (A,B).
      * @param methodGraph
      * @param classes
      * @return
@@ -31,29 +35,50 @@ public final class CouplingGraphBuilder {
     public static WeightedGraph<String> buildFromCalculator(
             CallGraphBuilder.DiGraph<String> methodGraph,
             List<ClassInfo> classes
+    ) {
+        return buildFromCalculator(methodGraph, classes, false);
+    }
+
+    /**
+     * Graphe de couplage pondéré, avec le couplage compté en arêtes ou en appels.
+     * @param methodGraph
+     * @param classes
+     * @param weighted true : {@link MetricsCalculator#calculateWeightedCoupling} (multiplicité des appels)
+     * @return
+     */
+    public static WeightedGraph<String> buildFromCalculator(
+            CallGraphBuilder.DiGraph<String> methodGraph,
+            List<ClassInfo> classes,
+            boolean weighted
     ) {
         Objects.requireNonNull(methodGraph, "methodGraph");
         Objects.requireNonNull(classes, "classes");
 
+        // Matrice creuse : un seul parcours du graphe
+        return fromMatrix(CouplingMatrix.of(methodGraph, classes, weighted));
+    }
+
+    /**
+     * Graphe de couplage pondéré d'une matrice déjà calculée (par exemple celle d'un {@link CouplingService}).
+     * @param m
+     * @return
+     */
+    public static WeightedGraph<String> fromMatrix(CouplingMatrix m) {
         WeightedGraph<String> g = new WeightedGraph<>();
 
-        for (ClassInfo ci : classes) g.addNode(qnOf(ci));
+        // Noms qualifiés lus dans la table des symboles (une chaîne par classe, pas par couple)
+        SymbolTable st = m.symbols;
+        for (int i = 0; i < m.size(); i++) g.addNode(st.name(st.nameOf(i)));
 
-        final int n = classes.size();
-        for (int i = 0; i < n; i++) {
-            ClassInfo A = classes.get(i);
-            for (int j = i+1; j < n; j++) {
-                ClassInfo B = classes.get(j);
-                float w = MetricsCalculator.calculateCoupling(methodGraph, classes, A, B);
-                g.addEdgeUndirected(qnOf(A), qnOf(B), w);
+        // Seulement les couples de couplage non nul, dans l'ordre (i, j) de la double boucle :
+        // les couples nuls n'ajoutaient rien
+        for (int i = 0; i < m.size(); i++) {
+            for (int k = m.rowBegin(i); k < m.rowEnd(i); k++) {
+                int j = m.column(k);
+                if (j > i) g.addEdgeUndirected(st.name(st.nameOf(i)), st.name(st.nameOf(j)), m.value(k));
             }
         }
+        g.matrix = m;
         return g;
     }
-
-    private static String qnOf(ClassInfo ci) {
-        if (ci.qualifiedName != null && !ci.qualifiedName.isEmpty()) return ci.qualifiedName;
-        if (ci.packageName != null && !ci.packageName.isEmpty()) return ci.packageName + "." + ci.className;
-        return ci.className;
-    }
 }
@@ -0,0 +1,217 @@
+package metrics;
+
+import model.SymbolTable;
+
+import java.util.*;
+
+/**
+ * Nombre d'arêtes du graphe d'appels entre chaque paire de classes du projet, calculé en un seul
+ * parcours du graphe : le propriétaire de chaque noeud est déduit une fois de son libellé, puis
+ * identifié par l'entier de son nom qualifié dans la {@link SymbolTable}.
+ * <p>
+ * Le couplage d'une paire devient une simple lecture. L'index vaut pour le graphe dans l'état où il
+ * a été parcouru ; c'est à son propriétaire (matrice de couplage, service) de le reconstruire.
+ * </p>
+ * <p>
+ * Sur un graphe CSR, le parcours est réparti par tranches de noeuds sources (les méthodes d'une même
+ * classe sont consécutives) sur le pool fork-join commun : chaque tranche compte dans ses propres
+ * tables, fusionnées ensuite par sommes entières, donc mêmes compteurs qu'en séquentiel.
+ * </p>
+ */
+final class CouplingIndex {
+
+    /** Noeuds sources par tranche du parcours parallèle. */
+    private static final int GRAIN = 2048;
+
+    final SymbolTable symbols;
+
+    /** Nombre total d'arêtes (dénominateur du couplage). */
+    final long edges;
+    /** Nombre total d'appels (somme des multiplicités, dénominateur du couplage pondéré). */
+    final long calls;
+    // paire non ordonnée (id de nom min, id de nom max) -> {arêtes, appels} dans un sens ou dans l'autre
+    private final Map<Long, long[]> pairs;
+
+    /** Compteurs d'une tranche du parcours. */
+    private static final class Counts {
+        Map<Long, long[]> pairs = new HashMap<>();
+        long edges, calls;
+
+        void add(int from, int to, long weight) {
+            long[] c = pairs.computeIfAbsent(key(from, to), k -> new long[2]);
+            c[0]++;
+            c[1] += weight;
+        }
+
+        /** Fusion (sommes entières) : la plus petite table est versée dans la plus grande. */
+        static Counts merge(Counts left, Counts right) {
+            Counts big = left, small = right;
+            if (small.pairs.size() > big.pairs.size()) { big = right; small = left; }
+            for (Map.Entry<Long, long[]> e : small.pairs.entrySet()) {
+                long[] c = big.pairs.get(e.getKey());
+                if (c == null) {
+                    big.pairs.put(e.getKey(), e.getValue());
+                } else {
+                    c[0] += e.getValue()[0];
+                    c[1] += e.getValue()[1];
+                }
+            }
+            big.edges += small.edges;
+            big.calls += small.calls;
+            return big;
+        }
+    }
+
+    /**
+     * Parcourt le graphe une fois.
+     * @param graph
+     * @param symbols table des classes du projet
+     */
+    CouplingIndex(CallGraphBuilder.DiGraph<String> graph, SymbolTable symbols) {
+        this.symbols = symbols;
+
+        Counts counts;
+        if (graph instanceof CsrGraph.View) {
+            // Graphe CSR : parcours des tableaux d'entiers, sans hachage de libellés ; le propriétaire
+            // est lu dans la description du noeud quand le graphe en a une
+            CsrGraph g = ((CsrGraph.View) graph).csr();
+            int n = g.nodeCount();
+            int[] ownerOfNode = new int[n];
+            RangeTasks.reduce(n, GRAIN, (first, end) -> {
+                for (int v = first; v < end; v++) {
+                    MethodNode node = g.node(v);
+                    ownerOfNode[v] = (node != null) ? ownerId(node) : ownerId(g.label(v));
+                }
+                return null;
+            }, (l, r) -> null);
+            counts = RangeTasks.reduce(n, GRAIN, (first, end) -> {
+                Counts local = new Counts();
+                for (int v = first; v < end; v++) {
+                    int from = ownerOfNode[v];
+                    for (int e = g.outBegin(v); e < g.outEnd(v); e++) {
+                        local.edges++;
+                        local.calls += g.weight(e);
+                        int to = ownerOfNode[g.target(e)];
+                        if (from >= 0 && to >= 0) local.add(from, to, g.weight(e));
+                    }
+                }
+                return local;
+            }, Counts::merge);
+        } else {
+            counts = new Counts();
+            Map<String, Integer> ownerOfNode = new HashMap<>(graph.nodes().size() * 2);
+            for (String node : graph.nodes()) ownerOfNode.put(node, ownerId(node));
+            for (Map.Entry<String, Set<String>> e : graph.edges().entrySet()) {
+                int from = ownerOfNode.get(e.getKey());
+                // sans multiplicités : un appel par arête
+                for (String toNode : e.getValue()) {
+                    counts.edges++;
+                    counts.calls++;
+                    int to = ownerOfNode.get(toNode);
+                    if (from >= 0 && to >= 0) counts.add(from, to, 1);
+                }
+            }
+        }
+        this.pairs = counts.pairs;
+        this.edges = counts.edges;
+        this.calls = counts.calls;
+    }
+
+    /** Arêtes entre les deux noms qualifiés (dans les deux sens). */
+    long count(int a, int b) {
+        long[] c = pairs.get(key(a, b));
+        return (c != null) ? c[0] : 0;
+    }
+
+    /** Appels entre les deux noms qualifiés (dans les deux sens). */
+    long callCount(int a, int b) {
+        long[] c = pairs.get(key(a, b));
+        return (c != null) ? c[1] : 0;
+    }
+
+    /** Couplage entre deux noms qualifiés : arêtes entre eux / arêtes du graphe. */
+    float coupling(int a, int b) {
+        return edges == 0 ? 0f : (float) count(a, b) / (float) edges;
+    }
+
+    /** Couplage pondéré : appels entre eux / appels du graphe. */
+    float weightedCoupling(int a, int b) {
+        return calls == 0 ? 0f : (float) callCount(a, b) / (float) calls;
+    }
+
+    /** Visiteur des paires de noms reliées. */
+    interface PairVisitor {
+        void pair(int a, int b, long edges, long calls);
+    }
+
+    /** Chaque paire de noms (a <= b) reliée par au moins une arête, dans un ordre quelconque. */
+    void forEachPair(PairVisitor v) {
+        for (Map.Entry<Long, long[]> e : pairs.entrySet()) {
+            long k = e.getKey();
+            v.pair((int) (k >>> 32), (int) k, e.getValue()[0], e.getValue()[1]);
+        }
+    }
+
+    /**
+     * Paires de classes (i < j, indices dans la liste des classes) de couplage non nul, triées : pour
+     * deux classes de même nom qualifié, le couplage est celui du nom avec lui-même.
+     * @return clés {@code (long) i << 32 | j}
+     */
+    long[] coupledClassPairs() {
+        int[][] classesOfName = new int[symbols.nameCount()][];
+        int[] count = new int[symbols.nameCount()];
+        for (int i = 0; i < symbols.classCount(); i++) count[symbols.nameOf(i)]++;
+        for (int a = 0; a < count.length; a++) classesOfName[a] = new int[count[a]];
+        Arrays.fill(count, 0);
+        for (int i = 0; i < symbols.classCount(); i++) {
+            int a = symbols.nameOf(i);
+            classesOfName[a][count[a]++] = i;
+        }
+
+        long[][] out = {new long[16]};
+        int[] size = {0};
+        forEachPair((a, b, edgeCount, callCount) -> {
+            for (int i : classesOfName[a]) {
+                for (int j : classesOfName[b]) {
+                    if (i == j) continue;
+                    if (a == b && i > j) continue;       // paire de même nom : une seule fois
+                    if (size[0] == out[0].length) out[0] = Arrays.copyOf(out[0], size[0] * 2);
+                    out[0][size[0]++] = (i < j) ? ((long) i << 32) | j : ((long) j << 32) | i;
+                }
+            }
+        });
+        long[] keys = Arrays.copyOf(out[0], size[0]);
+        Arrays.parallelSort(keys);
+        return keys;
+    }
+
+    private static long key(int a, int b) {
+        return (a <= b) ? ((long) a << 32) | b : ((long) b << 32) | a;
+    }
+
+    /**
+     * Id du nom qualifié auquel le libellé d'un noeud est rattaché (mêmes règles que
+     * {@link MetricsCalculator#calculateCoupling}), ou -1 si ce n'est pas une classe du projet.
+     */
+    private int ownerId(String nodeLabel) {
+        String owner = MetricsCalculator.ownerOfMethodNodeAllowExt(nodeLabel);
+        if (owner == null) return symbols.nameId("");
+        if (owner.equals("[EXT]")) return symbols.nameId("[EXT]");
+        return resolve(owner.replace('$', '.'));
+    }
+
+    /** Id du propriétaire d'un noeud décrit, ou -1. */
+    private int ownerId(MethodNode node) {
+        return (node.owner != null) ? resolve(node.owner) : -1;
+    }
+
+    /**
+     * Nom qualifié du projet, sinon nom simple : entre homonymes, la dernière classe de ce nom l'emporte
+     * (comme {@code MetricsCalculator.canonicalOwner}, pour un couplage identique) ; -1 sinon.
+     */
+    private int resolve(String owner) {
+        int id = symbols.nameId(owner);
+        if (id >= 0) return id;
+        return (owner.indexOf('.') < 0) ? symbols.nameIdBySimpleName(owner) : -1;
+    }
+}
@@ -0,0 +1,157 @@
+package metrics;
+
+import model.ClassInfo;
+import model.SymbolTable;
+
+import java.util.*;
+
+/**
+ * Matrice de couplage creuse et symétrique entre les classes d'une liste (indices de la
+ * {@link SymbolTable}) : seules les paires non nulles sont rangées, ligne par ligne, dans des
+ * tableaux primitifs (format CSR, colonnes croissantes, chaque paire dans ses deux lignes).
+ * Les valeurs de la ligne {@code i} sont {@code value(k)} en colonne {@code column(k)} pour k de
+ * {@code rowBegin(i)} à {@code rowEnd(i)} exclu.
+ * <p>
+ * Sert aussi de fonction de couplage pour le clustering et l'identification de modules ; une classe
+ * absente de la liste a un couplage nul.
+ * </p>
+ */
+public final class CouplingMatrix implements HierarchicalClustering.Coupling {
+
+    public final SymbolTable symbols;
+    private final int[] rowOffsets;     // taille n + 1
+    private final int[] columns;
+    private final double[] values;
+
+    private CouplingMatrix(SymbolTable symbols, int[] rowOffsets, int[] columns, double[] values) {
+        this.symbols = symbols;
+        this.rowOffsets = rowOffsets;
+        this.columns = columns;
+        this.values = values;
+    }
+
+    public int size() { return rowOffsets.length - 1; }
+    /** Nombre de valeurs rangées (deux par paire non nulle). */
+    public int nonZeroCount() { return columns.length; }
+
+    public int rowBegin(int i) { return rowOffsets[i]; }
+    public int rowEnd(int i) { return rowOffsets[i + 1]; }
+    public int column(int k) { return columns[k]; }
+    public double value(int k) { return values[k]; }
+
+    /** Couplage entre les classes i et j (0 si la paire n'est pas rangée). */
+    public double get(int i, int j) {
+        int k = Arrays.binarySearch(columns, rowOffsets[i], rowOffsets[i + 1], j);
+        return (k >= 0) ? values[k] : 0.0;
+    }
+
+    @Override
+    public double between(ClassInfo a, ClassInfo b) {
+        int i = symbols.classIndex(a), j = symbols.classIndex(b);
+        return (i < 0 || j < 0 || i == j) ? 0.0 : get(i, j);
+    }
+
+    /**
+     * Couplage de {@link MetricsCalculator#calculateCoupling} (ou de
+     * {@link MetricsCalculator#calculateWeightedCoupling}) pour toutes les paires, en un seul parcours
+     * du graphe : seules les paires reliées par au moins une arête sont visitées.
+     * @param methodGraph
+     * @param classes
+     * @param weighted
+     * @return
+     */
+    public static CouplingMatrix of(CallGraphBuilder.DiGraph<String> methodGraph, List<ClassInfo> classes,
+                                    boolean weighted) {
+        return of(SymbolTable.of(classes), methodGraph, weighted);
+    }
+
+    /**
+     * Matrice de couplage des classes d'une table de symboles (celle du modèle ou du service).
+     * @param st
+     * @param methodGraph
+     * @param weighted
+     * @return
+     */
+    public static CouplingMatrix of(SymbolTable st, CallGraphBuilder.DiGraph<String> methodGraph, boolean weighted) {
+        CouplingIndex idx = new CouplingIndex(methodGraph, st);
+        Builder b = new Builder(st);
+        for (long key : idx.coupledClassPairs()) {
+            int i = (int) (key >>> 32), j = (int) key;
+            int a = st.nameOf(i), c = st.nameOf(j);
+            b.add(i, j, weighted ? idx.weightedCoupling(a, c) : idx.coupling(a, c));
+        }
+        return b.build();
+    }
+
+    /**
+     * Matrice d'une fonction de couplage quelconque, évaluée une fois pour chaque paire i &lt; j
+     * (supposée symétrique) ; les valeurs nulles ne sont pas rangées. Une matrice (ou un
+     * {@link CouplingService}) de ces classes est reprise telle quelle. La fonction est appelée
+     * séquentiellement, sur le thread appelant.
+     * @param classes
+     * @param couplingFn
+     * @return
+     */
+    public static CouplingMatrix of(List<ClassInfo> classes, HierarchicalClustering.Coupling couplingFn) {
+        CouplingMatrix own = CouplingService.matrixOf(couplingFn, classes);
+        if (own != null) return own;
+        SymbolTable st = SymbolTable.of(classes);
+        int n = classes.size();
+        Builder b = new Builder(st);
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) b.add(i, j, couplingFn.between(classes.get(i), classes.get(j)));
+        }
+        return b.build();
+    }
+
+    /** Accumule les paires (i &lt; j) dans l'ordre, puis les range dans les deux lignes. */
+    private static final class Builder {
+        private final SymbolTable symbols;
+        private int[] rows = new int[16];
+        private int[] cols = new int[16];
+        private double[] vals = new double[16];
+        private int size;
+
+        Builder(SymbolTable symbols) {
+            this.symbols = symbols;
+        }
+
+        void add(int i, int j, double v) {
+            if (v == 0.0) return;
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+                cols = Arrays.copyOf(cols, size * 2);
+                vals = Arrays.copyOf(vals, size * 2);
+            }
+            rows[size] = i;
+            cols[size] = j;
+            vals[size++] = v;
+        }
+
+        CouplingMatrix build() {
+            int n = symbols.classCount();
+            int[] offsets = new int[n + 1];
+            for (int p = 0; p < size; p++) {
+                offsets[rows[p] + 1]++;
+                offsets[cols[p] + 1]++;
+            }
+            for (int i = 0; i < n; i++) offsets[i + 1] += offsets[i];
+            int[] columns = new int[2 * size];
+            double[] values = new double[2 * size];
+            int[] fill = Arrays.copyOf(offsets, n);
+            // Paires triées par (i, j) : la ligne j reçoit ses colonnes i < j dans l'ordre croissant,
+            // avant ses colonnes supérieures, rangées lors du passage sur sa propre ligne
+            for (int p = 0; p < size; p++) {
+                int i = rows[p], j = cols[p];
+                columns[fill[j]] = i;
+                values[fill[j]++] = vals[p];
+            }
+            for (int p = 0; p < size; p++) {
+                int i = rows[p], j = cols[p];
+                columns[fill[i]] = j;
+                values[fill[i]++] = vals[p];
+            }
+            return new CouplingMatrix(symbols, offsets, columns, values);
+        }
+    }
+}
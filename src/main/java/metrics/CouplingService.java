@@ -0,0 +1,197 @@
+package metrics;
+
+import model.ClassInfo;
+import model.SymbolTable;
+
+import java.util.*;
+
+/**
+ * Couplage entre classes d'un modèle, calculé une fois par version du modèle : la table des
+ * symboles, le graphe d'appels (fournis, ou construits au premier besoin) et la {@link CouplingMatrix}
+ * sont gardés jusqu'à ce que la liste de classes ou le graphe change. Les requêtes (paire, ligne,
+ * k plus couplées) sont lues dans la matrice.
+ * <p>
+ * Partagé par les panneaux de l'interface ; sert aussi de fonction de couplage pour le clustering et
+ * l'identification de modules, qui lisent directement sa matrice.
+ * </p>
+ */
+public final class CouplingService implements HierarchicalClustering.Coupling {
+
+    /** Classe couplée et valeur du couplage. */
+    public static final class Entry {
+        public final ClassInfo other;
+        public final double coupling;
+
+        Entry(ClassInfo other, double coupling) {
+            this.other = other;
+            this.coupling = coupling;
+        }
+    }
+
+    private final boolean weighted;
+    private List<ClassInfo> classes = Collections.emptyList();
+    private SymbolTable symbols;
+    private CallGraphBuilder.DiGraph<String> graph;
+    private int graphVersion;
+    private CouplingMatrix matrix;
+    private Map<String, Integer> bySimpleName;
+    private int version;
+
+    public CouplingService() {
+        this(false);
+    }
+
+    /**
+     * @param weighted true : couplage compté en appels ({@link MetricsCalculator#calculateWeightedCoupling})
+     */
+    public CouplingService(boolean weighted) {
+        this.weighted = weighted;
+    }
+
+    /**
+     * Nouveau modèle : le graphe d'appels sera construit au premier besoin.
+     * @param classes
+     */
+    public synchronized void update(List<ClassInfo> classes) {
+        update(classes, null);
+    }
+
+    /**
+     * Nouveau modèle et son graphe d'appels ; le cache n'est invalidé que si l'un des deux a changé.
+     * @param classes
+     * @param methodGraph graphe de {@code buildMethodGraph(classes, true)}, ou null pour le construire au besoin
+     * @return true si le cache a été invalidé
+     */
+    public synchronized boolean update(List<ClassInfo> classes, CallGraphBuilder.DiGraph<String> methodGraph) {
+        Objects.requireNonNull(classes, "classes");
+        if (classes == this.classes && methodGraph != null && methodGraph == graph
+                && methodGraph.version() == graphVersion) return false;
+        return update(SymbolTable.of(classes), methodGraph);
+    }
+
+    /**
+     * Nouveau modèle, avec sa table de symboles ({@link model.ProjectModel#symbols()}).
+     * @param symbols
+     * @param methodGraph graphe construit sur cette table, ou null pour le construire au besoin
+     * @return true si le cache a été invalidé
+     */
+    public synchronized boolean update(SymbolTable symbols, CallGraphBuilder.DiGraph<String> methodGraph) {
+        Objects.requireNonNull(symbols, "symbols");
+        if (symbols == this.symbols && methodGraph != null && methodGraph == graph
+                && methodGraph.version() == graphVersion) return false;
+        this.symbols = symbols;
+        this.classes = symbols.classes;
+        this.graph = methodGraph;
+        this.graphVersion = (methodGraph != null) ? methodGraph.version() : 0;
+        invalidate();
+        return true;
+    }
+
+    /** Oublie la matrice ; elle sera recalculée à la prochaine requête. */
+    public synchronized void invalidate() {
+        matrix = null;
+        bySimpleName = null;
+        version++;
+    }
+
+    /** Incrémenté à chaque invalidation. */
+    public synchronized int version() {
+        return version;
+    }
+
+    public synchronized List<ClassInfo> classes() {
+        return classes;
+    }
+
+    /** Table des symboles du modèle courant. */
+    public synchronized SymbolTable symbols() {
+        if (symbols == null) symbols = SymbolTable.of(classes);
+        return symbols;
+    }
+
+    public synchronized CallGraphBuilder.DiGraph<String> methodGraph() {
+        if (graph == null) {
+            graph = CallGraphBuilder.buildMethodGraph(symbols(), true, CallGraphBuilder.Dispatch.STATIC);
+            graphVersion = graph.version();
+        }
+        return graph;
+    }
+
+    public synchronized CouplingMatrix matrix() {
+        CallGraphBuilder.DiGraph<String> g = methodGraph();
+        if (g.version() != graphVersion) {      // graphe modifié sur place
+            graphVersion = g.version();
+            invalidate();
+        }
+        if (matrix == null) matrix = CouplingMatrix.of(symbols(), g, weighted);
+        return matrix;
+    }
+
+    @Override
+    public double between(ClassInfo a, ClassInfo b) {
+        return matrix().between(a, b);
+    }
+
+    /**
+     * Couplage entre deux classes désignées par leur nom simple (première classe de ce nom), 0 si
+     * l'une est inconnue.
+     * @param a
+     * @param b
+     * @return
+     */
+    public synchronized double coupling(String a, String b) {
+        int i = indexOf(a), j = indexOf(b);
+        return (i < 0 || j < 0 || i == j) ? 0.0 : matrix().get(i, j);
+    }
+
+    /**
+     * Classes couplées à {@code ci} (couplage non nul), dans l'ordre de la liste.
+     * @param ci
+     * @return
+     */
+    public synchronized List<Entry> row(ClassInfo ci) {
+        CouplingMatrix m = matrix();
+        int i = m.symbols.classIndex(ci);
+        if (i < 0) return new ArrayList<>();
+        List<Entry> out = new ArrayList<>(m.rowEnd(i) - m.rowBegin(i));
+        for (int k = m.rowBegin(i); k < m.rowEnd(i); k++) out.add(new Entry(classes.get(m.column(k)), m.value(k)));
+        return out;
+    }
+
+    /**
+     * Les k classes les plus couplées à {@code ci} (à couplage égal, dans l'ordre de la liste).
+     * @param ci
+     * @param k
+     * @return
+     */
+    public synchronized List<Entry> top(ClassInfo ci, int k) {
+        List<Entry> out = row(ci);
+        out.sort((x, y) -> Double.compare(y.coupling, x.coupling));
+        return (out.size() > k) ? new ArrayList<>(out.subList(0, Math.max(0, k))) : out;
+    }
+
+    /** Première classe portant ce nom simple, ou null. */
+    public synchronized ClassInfo classNamed(String simpleName) {
+        int i = indexOf(simpleName);
+        return (i >= 0) ? classes.get(i) : null;
+    }
+
+    /** Matrice d'une fonction de couplage qui en a une pour ces classes, sinon null. */
+    static CouplingMatrix matrixOf(HierarchicalClustering.Coupling fn, List<ClassInfo> classes) {
+        CouplingMatrix m = null;
+        if (fn instanceof CouplingMatrix) m = (CouplingMatrix) fn;
+        else if (fn instanceof CouplingService) m = ((CouplingService) fn).matrix();
+        return (m != null && (classes == null || m.symbols.classes == classes)) ? m : null;
+    }
+
+    private int indexOf(String simpleName) {
+        if (simpleName == null) return -1;
+        if (bySimpleName == null) {
+            Map<String, Integer> m = new HashMap<>(classes.size() * 2);
+            for (int i = 0; i < classes.size(); i++) m.putIfAbsent(classes.get(i).className, i);
+            bySimpleName = m;
+        }
+        Integer i = bySimpleName.get(simpleName);
+        return (i != null) ? i : -1;
+    }
+}
@@ -0,0 +1,351 @@
+package metrics;
+
+import java.util.*;
+
+/**
+ * Graphe orienté immuable au format CSR (compressed sparse row) : noeuds numérotés 0..n-1, arcs
+ * sortants et entrants rangés dans des tableaux d'entiers contigus. Les arcs de {@code v} sont
+ * {@code target(e)} pour {@code e} de {@code outBegin(v)} à {@code outEnd(v)} exclu, dans l'ordre
+ * d'ajout ; les prédécesseurs se lisent de même avec {@code inBegin/inEnd/source}.
+ * <p>
+ * Chaque arc porte sa multiplicité ({@link #weight}, nombre d'ajouts fusionnés) et, si le builder
+ * en a reçu, les positions de ces ajouts (lignes des sites d'appel) dans un tableau commun.
+ * </p>
+ * <p>
+ * Les libellés ne servent qu'à l'affichage ; {@link #asDiGraph()} expose le graphe sous la forme
+ * {@link CallGraphBuilder.DiGraph} attendue par l'interface et les exports, sans copie.
+ * </p>
+ */
+public final class CsrGraph {
+
+    private final String[] labels;
+    private final int[] outOffsets;   // taille n + 1
+    private final int[] targets;
+    private final int[] weights;      // multiplicité de chaque arc
+    private final long totalWeight;
+    private final int[] siteOffsets;  // arc -> début de ses sites (taille m + 1), null sans sites
+    private final int[] sites;
+    private final int[] inOffsets;    // taille n + 1
+    private final int[] sources;
+    private final int[] inEdges;      // arc entrant -> indice de l'arc sortant correspondant
+    private final MethodNode[] nodes; // graphe de méthodes : noeud -> description, sinon null
+    private volatile Map<String, Integer> ids;
+
+    private CsrGraph(String[] labels, MethodNode[] nodes, int[] outOffsets, int[] targets, int[] weights,
+                     int[] siteOffsets, int[] sites, int[] inOffsets, int[] sources, int[] inEdges) {
+        this.labels = labels;
+        this.nodes = nodes;
+        this.outOffsets = outOffsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.siteOffsets = siteOffsets;
+        this.sites = sites;
+        this.inOffsets = inOffsets;
+        this.sources = sources;
+        this.inEdges = inEdges;
+        long w = 0;
+        for (int x : weights) w += x;
+        this.totalWeight = w;
+    }
+
+    public int nodeCount() { return labels.length; }
+    public int edgeCount() { return targets.length; }
+    /** Libellé du noeud ; celui d'un noeud de méthode est construit à la première demande. */
+    public String label(int v) {
+        String l = labels[v];
+        return (l != null) ? l : nodes[v].label();
+    }
+
+    /** Description du noeud d'un graphe de méthodes (propriétaire, signature), ou null. */
+    public MethodNode node(int v) { return (nodes != null) ? nodes[v] : null; }
+
+    public int outBegin(int v) { return outOffsets[v]; }
+    public int outEnd(int v) { return outOffsets[v + 1]; }
+    public int outDegree(int v) { return outOffsets[v + 1] - outOffsets[v]; }
+    public int target(int e) { return targets[e]; }
+
+    /** Multiplicité de l'arc (nombre d'appels fusionnés). */
+    public int weight(int e) { return weights[e]; }
+    /** Somme des multiplicités. */
+    public long totalWeight() { return totalWeight; }
+
+    public boolean hasSites() { return sites != null; }
+    /** Sites de l'arc : {@code site(i)} pour i de {@code siteBegin(e)} à {@code siteEnd(e)} exclu. */
+    public int siteBegin(int e) { return siteOffsets[e]; }
+    public int siteEnd(int e) { return siteOffsets[e + 1]; }
+    public int site(int i) { return sites[i]; }
+
+    public int inBegin(int v) { return inOffsets[v]; }
+    public int inEnd(int v) { return inOffsets[v + 1]; }
+    public int inDegree(int v) { return inOffsets[v + 1] - inOffsets[v]; }
+    public int source(int e) { return sources[e]; }
+    /** Indice (côté sortant) de l'arc entrant e, pour lire son poids ou ses sites. */
+    public int inEdge(int e) { return inEdges[e]; }
+
+    /** Numéro du noeud portant ce libellé, ou -1 (index construit au premier appel). */
+    public int nodeId(Object label) {
+        Map<String, Integer> m = ids;
+        if (m == null) {
+            m = new HashMap<>(labels.length * 2);
+            for (int v = 0; v < labels.length; v++) m.put(label(v), v);
+            ids = m;
+        }
+        Integer v = m.get(label);
+        return (v != null) ? v : -1;
+    }
+
+    /**
+     * Graphe CSR d'un {@link CallGraphBuilder.DiGraph} : celui d'une vue, sans copie, sinon une copie
+     * (mêmes noeuds et arcs, dans le même ordre).
+     * @param g
+     * @return
+     */
+    public static CsrGraph of(CallGraphBuilder.DiGraph<String> g) {
+        if (g instanceof View) return ((View) g).csr();
+        Builder b = new Builder();
+        for (String n : g.nodes()) b.addNode(n);
+        for (Map.Entry<String, Set<String>> e : g.edges().entrySet()) {
+            for (String to : e.getValue()) b.addEdge(e.getKey(), to);
+        }
+        return b.build();
+    }
+
+    /** Vue en lecture seule au format {@link CallGraphBuilder.DiGraph}. */
+    public CallGraphBuilder.DiGraph<String> asDiGraph() {
+        return new View(this);
+    }
+
+    /**
+     * Remplissage d'un {@link CsrGraph} : noeuds dédoublonnés par libellé (ou, pour un noeud de méthode,
+     * par propriétaire et signature), arcs en double fusionnés à la construction (la première occurrence
+     * garde sa place, la multiplicité est comptée). Un même graphe reçoit des noeuds d'un seul genre.
+     */
+    public static final class Builder {
+        private final List<String> labels = new ArrayList<>();   // null pour un noeud de méthode
+        private final Map<String, Integer> ids = new HashMap<>();
+        private List<MethodNode> nodes;   // créée au premier noeud décrit
+        private Map<MethodNode, Integer> nodeIds;
+        private int[] from = new int[16];
+        private int[] to = new int[16];
+        private int[] site;               // alloué au premier site reçu
+        private int edges;
+
+        /** Ajoute le noeud s'il est nouveau ; renvoie son numéro. */
+        public int addNode(String label) {
+            Integer id = ids.get(label);
+            if (id == null) {
+                id = labels.size();
+                ids.put(label, id);
+                labels.add(label);
+            }
+            return id;
+        }
+
+        /**
+         * Ajoute le noeud d'une méthode, dédoublonné par {@link MethodNode#equals} sans construire son
+         * libellé (la première description est gardée).
+         * @param node
+         * @return son numéro
+         */
+        public int addNode(MethodNode node) {
+            if (nodes == null) {
+                nodes = new ArrayList<>();
+                nodeIds = new HashMap<>();
+            }
+            Integer id = nodeIds.get(node);
+            if (id == null) {
+                id = labels.size();
+                nodeIds.put(node, id);
+                labels.add(null);
+                while (nodes.size() < id) nodes.add(null);
+                nodes.add(node);
+            }
+            return id;
+        }
+
+        public int nodeCount() {
+            return labels.size();
+        }
+
+        public void addEdge(int u, int v) {
+            if (edges == from.length) {
+                from = Arrays.copyOf(from, edges * 2);
+                to = Arrays.copyOf(to, edges * 2);
+                if (site != null) site = Arrays.copyOf(site, edges * 2);
+            }
+            from[edges] = u;
+            to[edges] = v;
+            edges++;
+        }
+
+        /**
+         * Ajoute un arc avec la position de son occurrence (ex. ligne du site d'appel).
+         * @param u
+         * @param v
+         * @param position
+         */
+        public void addEdge(int u, int v, int position) {
+            if (site == null) site = new int[from.length];
+            addEdge(u, v);
+            site[edges - 1] = position;
+        }
+
+        public void addEdge(String u, String v) {
+            addEdge(addNode(u), addNode(v));
+        }
+
+        public CsrGraph build() {
+            int n = labels.size();
+
+            // Tri stable par origine (comptage), puis fusion des doublons par origine
+            int[] outOffsets = new int[n + 1];
+            for (int e = 0; e < edges; e++) outOffsets[from[e] + 1]++;
+            for (int v = 0; v < n; v++) outOffsets[v + 1] += outOffsets[v];
+            int[] order = new int[edges];   // ajouts triés par origine -> indice d'ajout
+            int[] fill = Arrays.copyOf(outOffsets, n);
+            for (int e = 0; e < edges; e++) order[fill[from[e]]++] = e;
+
+            int[] stamp = new int[n];
+            Arrays.fill(stamp, -1);
+            int[] slot = new int[n];
+            int[] edgeOf = new int[edges];  // ajout trié -> arc fusionné
+            int[] targets = new int[edges];
+            int[] weights = new int[edges];
+            int m = 0;
+            for (int v = 0; v < n; v++) {
+                int begin = outOffsets[v], end = outOffsets[v + 1];
+                outOffsets[v] = m;
+                for (int k = begin; k < end; k++) {
+                    int t = to[order[k]];
+                    if (stamp[t] != v) {
+                        stamp[t] = v;
+                        slot[t] = m;
+                        targets[m++] = t;
+                    }
+                    weights[slot[t]]++;
+                    edgeOf[k] = slot[t];
+                }
+            }
+            outOffsets[n] = m;
+            if (m < edges) {
+                targets = Arrays.copyOf(targets, m);
+                weights = Arrays.copyOf(weights, m);
+            }
+
+            // Sites : regroupés par arc, dans l'ordre d'ajout
+            int[] siteOffsets = null, sites = null;
+            if (site != null) {
+                siteOffsets = new int[m + 1];
+                for (int e = 0; e < m; e++) siteOffsets[e + 1] = siteOffsets[e] + weights[e];
+                sites = new int[edges];
+                fill = Arrays.copyOf(siteOffsets, m);
+                for (int k = 0; k < edges; k++) sites[fill[edgeOf[k]]++] = site[order[k]];
+            }
+
+            // Arcs entrants : prédécesseurs par origine croissante
+            int[] inOffsets = new int[n + 1];
+            for (int e = 0; e < m; e++) inOffsets[targets[e] + 1]++;
+            for (int v = 0; v < n; v++) inOffsets[v + 1] += inOffsets[v];
+            int[] sources = new int[m];
+            int[] inEdges = new int[m];
+            fill = Arrays.copyOf(inOffsets, n);
+            for (int v = 0; v < n; v++) {
+                for (int e = outOffsets[v]; e < outOffsets[v + 1]; e++) {
+                    int i = fill[targets[e]]++;
+                    sources[i] = v;
+                    inEdges[i] = e;
+                }
+            }
+
+            MethodNode[] described = null;
+            if (nodes != null) {
+                described = nodes.toArray(new MethodNode[n]);
+                if (described.length < n) described = Arrays.copyOf(described, n);
+            }
+            return new CsrGraph(labels.toArray(new String[0]), described, outOffsets, targets, weights, siteOffsets, sites,
+                    inOffsets, sources, inEdges);
+        }
+    }
+
+    /**
+     * Adaptateur {@link CallGraphBuilder.DiGraph} en lecture seule : mêmes noeuds et arcs, dans le même
+     * ordre ; {@code addNode/addEdge} lèvent {@link UnsupportedOperationException}.
+     */
+    public static final class View extends CallGraphBuilder.DiGraph<String> {
+        private final CsrGraph g;
+        private final Set<String> nodes;
+        private final Map<String, Set<String>> edges;
+
+        View(CsrGraph g) {
+            this.g = g;
+            this.nodes = new AbstractSet<String>() {
+                @Override public int size() { return g.nodeCount(); }
+                @Override public boolean contains(Object o) { return g.nodeId(o) >= 0; }
+                @Override public Iterator<String> iterator() { return labels(0, g.nodeCount(), null); }
+            };
+            this.edges = new AbstractMap<String, Set<String>>() {
+                @Override public int size() { return g.nodeCount(); }
+                @Override public boolean containsKey(Object key) { return g.nodeId(key) >= 0; }
+                @Override public Set<String> get(Object key) {
+                    int v = g.nodeId(key);
+                    return (v >= 0) ? successors(v) : null;
+                }
+                @Override public Set<Map.Entry<String, Set<String>>> entrySet() {
+                    return new AbstractSet<Map.Entry<String, Set<String>>>() {
+                        @Override public int size() { return g.nodeCount(); }
+                        @Override public Iterator<Map.Entry<String, Set<String>>> iterator() {
+                            return new Iterator<Map.Entry<String, Set<String>>>() {
+                                int v = 0;
+                                @Override public boolean hasNext() { return v < g.nodeCount(); }
+                                @Override public Map.Entry<String, Set<String>> next() {
+                                    if (!hasNext()) throw new NoSuchElementException();
+                                    int u = v++;
+                                    return new AbstractMap.SimpleImmutableEntry<>(g.label(u), successors(u));
+                                }
+                            };
+                        }
+                    };
+                }
+            };
+        }
+
+        /** Le graphe CSR sous-jacent. */
+        public CsrGraph csr() {
+            return g;
+        }
+
+        @Override public void addNode(String n) { throw new UnsupportedOperationException("graphe immuable"); }
+        @Override public void addEdge(String from, String to) { throw new UnsupportedOperationException("graphe immuable"); }
+        @Override public void removeEdge(String from, String to) { throw new UnsupportedOperationException("graphe immuable"); }
+        @Override public void removeNode(String n) { throw new UnsupportedOperationException("graphe immuable"); }
+        @Override public Set<String> nodes() { return nodes; }
+        @Override public Map<String, Set<String>> edges() { return edges; }
+        @Override public int version() { return 0; }
+
+        private Set<String> successors(int v) {
+            int begin = g.outBegin(v), end = g.outEnd(v);
+            return new AbstractSet<String>() {
+                @Override public int size() { return end - begin; }
+                @Override public boolean contains(Object o) {
+                    int t = g.nodeId(o);
+                    for (int e = begin; e < end && t >= 0; e++) if (g.target(e) == t) return true;
+                    return false;
+                }
+                @Override public Iterator<String> iterator() { return labels(begin, end, g.targets); }
+            };
+        }
+
+        /** Libellés des indices [begin, end) (noeuds si {@code ids} est null, sinon ids[i]). */
+        private Iterator<String> labels(int begin, int end, int[] ids) {
+            return new Iterator<String>() {
+                int i = begin;
+                @Override public boolean hasNext() { return i < end; }
+                @Override public String next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    int k = i++;
+                    return g.label(ids != null ? ids[k] : k);
+                }
+            };
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package metrics;
 
 import model.ClassInfo;
+import model.SymbolTable;
 import java.util.*;
 
 /** Clustering hiérarchique agglomératif basé sur une fonction de couplage [0..1]. */
@@ -45,13 +46,14 @@ public final class HierarchicalClustering {
         if (classes.isEmpty()) return null;
         if (classes.size() == 1) return Node.leaf(classes.get(0));
 
-        List<Node> clusters = new ArrayList<>();
-        for (ClassInfo c : classes) clusters.add(Node.leaf(c));
+        // Les classes sont désignées par leur indice : similarités lues dans la matrice creuse
+        LeafSimilarity leafSim = new LeafSimilarity(CouplingMatrix.of(classes, couplingFn));
 
-        Map<Key, Double> leafSim = new HashMap<>();
-        for (int i=0;i<classes.size();i++) for (int j=i+1;j<classes.size();j++) {
-            double sim = clamp01(couplingFn.between(classes.get(i), classes.get(j)));
-            leafSim.put(new Key(classes.get(i), classes.get(j)), sim);
+        List<Node> clusters = new ArrayList<>();
+        List<int[]> members = new ArrayList<>();
+        for (int i = 0; i < classes.size(); i++) {
+            clusters.add(Node.leaf(classes.get(i)));
+            members.add(new int[]{i});
         }
 
         while (clusters.size() > 1) {
@@ -60,7 +62,7 @@ public final class HierarchicalClustering {
 
             for (int i=0;i<clusters.size();i++) {
                 for (int j=i+1;j<clusters.size();j++) {
-                    double sim = interClusterSim(clusters.get(i), clusters.get(j), leafSim, linkage);
+                    double sim = interClusterSim(members.get(i), members.get(j), leafSim, linkage);
                     if (sim > bestSim) { bestSim = sim; bi = i; bj = j; }
                 }
             }
@@ -68,12 +70,18 @@ public final class HierarchicalClustering {
             Node a = clusters.get(bi), b = clusters.get(bj);
             double height = 1.0 - clamp01(bestSim);
             Node merged = Node.merge(a, b, height);
+            int[] ma = members.get(bi), mb = members.get(bj);
+            int[] m = Arrays.copyOf(ma, ma.length + mb.length);
+            System.arraycopy(mb, 0, m, ma.length, mb.length);
 
             // Remplace les deux par le cluster fusionné
             if (bi > bj) { int t=bi; bi=bj; bj=t; }
             clusters.remove(bj);
             clusters.remove(bi);
             clusters.add(merged);
+            members.remove(bj);
+            members.remove(bi);
+            members.add(m);
         }
 
         return clusters.get(0);
@@ -81,8 +89,29 @@ public final class HierarchicalClustering {
 
     // --- Helpers ---
 
+    /**
+     * Similarités entre classes (indices dans la liste), lues dans la matrice de couplage.
+     * Deux classes de même nom qualifié ne sont appariées que dans l'ordre de la liste.
+     */
+    private static final class LeafSimilarity {
+        private final CouplingMatrix matrix;
+        private final int[] name;
+
+        LeafSimilarity(CouplingMatrix matrix) {
+            this.matrix = matrix;
+            SymbolTable st = matrix.symbols;
+            name = new int[st.classCount()];
+            for (int i = 0; i < name.length; i++) name[i] = st.nameOf(i);
+        }
+
+        double get(int a, int b) {
+            if (a == b || (a > b && name[a] == name[b])) return 0.0;
+            return clamp01(matrix.get(a, b));
+        }
+    }
+
     /** Similarité entre deux clusters selon la liaison choisie. */
-    private static double interClusterSim(Node A, Node B, Map<Key, Double> leafSim, Linkage linkage) {
+    private static double interClusterSim(int[] A, int[] B, LeafSimilarity leafSim, Linkage linkage) {
         switch (linkage) {
             case SINGLE:   return agg(A, B, leafSim, Math::max, -1.0);
             case COMPLETE: return agg(A, B, leafSim, Math::min,  1.0);
@@ -90,16 +119,16 @@ public final class HierarchicalClustering {
             default:       return average(A, B, leafSim);
         }
     }
-    private static double agg(Node A, Node B,
-                              Map<Key, Double> leafSim,
+    private static double agg(int[] A, int[] B,
+                              LeafSimilarity leafSim,
                               java.util.function.DoubleBinaryOperator op,
                               double init) {
         double acc = init;
         boolean first = true;
 
-        for (ClassInfo a : A.members) {
-            for (ClassInfo b : B.members) {
-                double s = leafSim.getOrDefault(new Key(a, b), 0.0);
+        for (int a : A) {
+            for (int b : B) {
+                double s = leafSim.get(a, b);
 
                 if (first) {
                     acc = s;
@@ -113,10 +142,10 @@ public final class HierarchicalClustering {
         return clamp01(acc);
     }
 
-    private static double average(Node A, Node B, Map<Key,Double> leafSim) {
+    private static double average(int[] A, int[] B, LeafSimilarity leafSim) {
         double sum = 0; int n = 0;
-        for (ClassInfo a : A.members) for (ClassInfo b : B.members) {
-            sum += leafSim.getOrDefault(new Key(a,b), 0.0);
+        for (int a : A) for (int b : B) {
+            sum += leafSim.get(a, b);
             n++;
         }
         return (n==0) ? 0.0 : clamp01(sum / n);
@@ -124,13 +153,6 @@ public final class HierarchicalClustering {
 
     private static double clamp01(double v){ return v<0?0: (v>1?1:v); }
 
-    private static final class Key {
-        final ClassInfo a,b; Key(ClassInfo x, ClassInfo y){
-            if (qnOf(x).compareTo(qnOf(y)) <= 0) { a=x; b=y; } else { a=y; b=x; }
-        }
-        @Override public boolean equals(Object o){ if(!(o instanceof Key)) return false; Key k=(Key)o; return a==k.a && b==k.b; }
-        @Override public int hashCode(){ return System.identityHashCode(a)*31 + System.identityHashCode(b); }
-    }
     private static String qnOf(ClassInfo ci){
         if (ci.qualifiedName != null && !ci.qualifiedName.isEmpty()) return ci.qualifiedName;
         if (ci.packageName != null && !ci.packageName.isEmpty()) return ci.packageName + "." + ci.className;
@@ -0,0 +1,426 @@
+package metrics;
+
+import model.ClassInfo;
+import model.MethodCallInfo;
+import model.MethodInfo;
+
+import java.util.*;
+
+/**
+ * Graphe d'appel méthode->méthode entretenu fichier par fichier : remplacer les classes d'un fichier
+ * retire ses appels et ses méthodes, ajoute les nouveaux, puis ne re-résout que les appels (des autres
+ * fichiers) vers ou depuis les méthodes dont la définition a changé. Le coût d'une mise à jour dépend
+ * de la taille du changement, pas de celle du projet.
+ * <p>
+ * Mêmes noeuds, arcs et multiplicités que {@link CallGraphBuilder#buildMethodGraph} sur la concaténation
+ * des classes des fichiers (l'ordre des noeuds peut différer). Chaque mise à jour renvoie un
+ * {@link ChangeSet} (noeuds et arcs ajoutés ou retirés) exploitable par le couplage et le clustering.
+ * <p>
+ * Les appels d'un fichier repris à l'identique peuvent avoir été re-résolus sur place (résolution par
+ * nom du mode rapide, qui dépend des autres fichiers) : {@link #sync} ré-applique ceux dont la cible a
+ * changé.
+ * </p>
+ * <p>
+ * Pas de synchronisation : les mises à jour et les lectures de {@link #graph()} se font sur un même
+ * thread ; {@link #snapshot()} donne une copie immuable à publier vers d'autres threads.
+ * </p>
+ */
+public final class IncrementalCallGraph {
+
+    /** Un appel du code source, et l'arc qu'il produit actuellement. */
+    private static final class Call {
+        final MethodCallInfo source;
+        final String fromKey;
+        String toKey;               // clé de la méthode appelée (du projet ou non), ou null
+        MethodNode external;        // noeud si la cible n'est pas une méthode du projet
+        final int line;
+        MethodNode from, to;        // arc appliqué (to == null : aucun)
+
+        Call(MethodCallInfo source, String fromKey) {
+            this.source = source;
+            this.fromKey = fromKey;
+            this.toKey = CallGraphBuilder.calledMethodKey(source);
+            this.external = MethodNode.external(source);
+            this.line = source.line;
+        }
+
+        /** La cible lue dans l'appel source n'est plus celle de l'arc (appel re-résolu sur place). */
+        boolean stale() {
+            if (!Objects.equals(toKey, CallGraphBuilder.calledMethodKey(source))) return true;
+            MethodNode ext = MethodNode.external(source);
+            return !Objects.equals(ext.label(), external.label()) || !Objects.equals(ext.owner, external.owner);
+        }
+    }
+
+    /** Une méthode du projet portant une clé. */
+    private static final class Def {
+        final String file;
+        final MethodNode node;
+
+        Def(String file, MethodNode node) {
+            this.file = file;
+            this.node = node;
+        }
+    }
+
+    private final boolean includeExternal;
+    private final CallGraphBuilder.DiGraph<String> graph = new CallGraphBuilder.DiGraph<>();
+    private final Map<String, List<ClassInfo>> files = new LinkedHashMap<>();
+    private final Map<String, List<Call>> callsByFile = new LinkedHashMap<>();
+    private final Map<String, List<Def>> defs = new HashMap<>();          // clé -> définitions, la dernière donne le libellé
+    private final Map<String, Set<Call>> callsFrom = new HashMap<>();     // clé appelante -> appels
+    private final Map<String, Set<Call>> callsTo = new HashMap<>();       // clé appelée -> appels
+    private final Map<String, Map<String, Integer>> multiplicity = new HashMap<>();
+    private final Map<String, Integer> refs = new HashMap<>();            // libellé -> clés + arcs qui le référencent
+    private final Map<String, MethodNode> nodes = new HashMap<>();        // libellé -> description du noeud
+    private ChangeSet.Recorder recorder;
+
+    public IncrementalCallGraph(boolean includeExternal) {
+        this.includeExternal = includeExternal;
+    }
+
+    /** Le graphe courant (modifié en place par les mises à jour ; ne pas le modifier). */
+    public CallGraphBuilder.DiGraph<String> graph() {
+        return graph;
+    }
+
+    public Set<String> files() {
+        return Collections.unmodifiableSet(files.keySet());
+    }
+
+    /**
+     * Remplace les classes d'un fichier.
+     * @param file chemin du fichier
+     * @param classes nouvelles classes (vide ou null : fichier supprimé)
+     * @return les changements du graphe
+     */
+    public ChangeSet update(String file, List<ClassInfo> classes) {
+        recorder = new ChangeSet.Recorder();
+        try {
+            replace(file, classes);
+            return recorder.build();
+        } finally {
+            recorder = null;
+        }
+    }
+
+    /**
+     * Aligne le graphe sur un état complet du projet : seuls les fichiers dont la liste de classes n'est
+     * plus la même (identité) sont mis à jour, les fichiers absents sont retirés ; dans les autres, seuls
+     * les appels re-résolus depuis la dernière mise à jour sont ré-appliqués.
+     * @param classesByFile fichier -> classes (ex. {@code ProjectModel.classesByFile})
+     * @return les changements cumulés
+     */
+    public ChangeSet sync(Map<String, List<ClassInfo>> classesByFile) {
+        recorder = new ChangeSet.Recorder();
+        try {
+            for (String file : new ArrayList<>(files.keySet())) {
+                if (!classesByFile.containsKey(file)) replace(file, null);
+            }
+            for (Map.Entry<String, List<ClassInfo>> e : classesByFile.entrySet()) {
+                if (files.get(e.getKey()) != e.getValue()) replace(e.getKey(), e.getValue());
+                else refresh(e.getKey());
+            }
+            return recorder.build();
+        } finally {
+            recorder = null;
+        }
+    }
+
+    /**
+     * Copie immuable au format CSR (multiplicités et lignes des appels comprises), dans l'ordre des
+     * noeuds du graphe courant.
+     * @return
+     */
+    public CsrGraph snapshot() {
+        CsrGraph.Builder b = new CsrGraph.Builder();
+        for (String n : graph.nodes()) b.addNode(nodes.get(n));
+        for (List<Call> calls : callsByFile.values()) {
+            for (Call c : calls) {
+                if (c.to != null) b.addEdge(b.addNode(c.from), b.addNode(c.to), c.line);
+            }
+        }
+        return b.build();
+    }
+
+    // -------------------- mise à jour --------------------
+
+    private void replace(String file, List<ClassInfo> classes) {
+        Map<String, MethodNode> nodeBefore = new LinkedHashMap<>();
+
+        // 1. Appels et méthodes de l'ancienne version
+        List<Call> oldCalls = callsByFile.remove(file);
+        if (oldCalls != null) {
+            for (Call c : oldCalls) {
+                unapply(c);
+                index(callsFrom, c.fromKey, c, false);
+                if (c.toKey != null) index(callsTo, c.toKey, c, false);
+            }
+        }
+        List<ClassInfo> old = files.remove(file);
+        if (old != null) {
+            for (ClassInfo ci : old) {
+                String owner = qnOf(ci);
+                for (MethodInfo mi : ci.methods) {
+                    String key = methodKey(mi, owner);
+                    nodeBefore.putIfAbsent(key, nodeOf(key));
+                    List<Def> ds = defs.get(key);
+                    for (int i = 0; i < ds.size(); i++) {
+                        if (ds.get(i).file.equals(file)) {
+                            ds.remove(i);
+                            break;
+                        }
+                    }
+                    if (ds.isEmpty()) defs.remove(key);
+                }
+            }
+        }
+
+        // 2. Méthodes de la nouvelle version
+        if (classes != null && !classes.isEmpty()) {
+            files.put(file, classes);
+            for (ClassInfo ci : classes) {
+                String owner = qnOf(ci);
+                for (MethodInfo mi : ci.methods) {
+                    String key = methodKey(mi, owner);
+                    nodeBefore.putIfAbsent(key, nodeOf(key));
+                    defs.computeIfAbsent(key, k -> new ArrayList<>(1)).add(new Def(file, MethodNode.of(mi, owner)));
+                }
+            }
+        }
+
+        // 3. Clés dont le libellé a changé : noeud, puis appels des autres fichiers vers/depuis elles
+        List<String> changed = new ArrayList<>();
+        for (Map.Entry<String, MethodNode> e : nodeBefore.entrySet()) {
+            MethodNode after = nodeOf(e.getKey());
+            if (Objects.equals(labelOf(e.getValue()), labelOf(after))) continue;
+            if (after != null) ref(after);
+            if (e.getValue() != null) unref(e.getValue().label());
+            changed.add(e.getKey());
+        }
+        for (String key : changed) {
+            for (Call c : calls(callsFrom, key)) { unapply(c); apply(c); }
+            for (Call c : calls(callsTo, key)) { unapply(c); apply(c); }
+        }
+
+        // 4. Appels de la nouvelle version
+        if (classes != null && !classes.isEmpty()) {
+            List<Call> calls = new ArrayList<>();
+            for (ClassInfo ci : classes) {
+                String owner = qnOf(ci);
+                for (MethodInfo mi : ci.methods) {
+                    if (mi.calls == null) continue;
+                    String fromKey = methodKey(mi, owner);
+                    for (MethodCallInfo call : mi.calls) {
+                        Call c = new Call(call, fromKey);
+                        calls.add(c);
+                        index(callsFrom, c.fromKey, c, true);
+                        if (c.toKey != null) index(callsTo, c.toKey, c, true);
+                        apply(c);
+                    }
+                }
+            }
+            callsByFile.put(file, calls);
+        }
+    }
+
+    /** Ré-applique les appels d'un fichier inchangé dont la cible a été re-résolue. */
+    private void refresh(String file) {
+        List<Call> calls = callsByFile.get(file);
+        if (calls == null) return;
+        for (Call c : calls) {
+            if (!c.stale()) continue;
+            unapply(c);
+            if (c.toKey != null) index(callsTo, c.toKey, c, false);
+            c.toKey = CallGraphBuilder.calledMethodKey(c.source);
+            c.external = MethodNode.external(c.source);
+            if (c.toKey != null) index(callsTo, c.toKey, c, true);
+            apply(c);
+        }
+    }
+
+    private void apply(Call c) {
+        MethodNode from = nodeOf(c.fromKey);
+        MethodNode to = (c.toKey != null) ? nodeOf(c.toKey) : null;
+        if (to == null && includeExternal) to = c.external;
+        if (from == null || to == null) return;
+        c.from = from;
+        c.to = to;
+        Map<String, Integer> out = multiplicity.computeIfAbsent(from.label(), k -> new HashMap<>());
+        int before = out.getOrDefault(to.label(), 0);
+        out.put(to.label(), before + 1);
+        if (before == 0) {
+            ref(from);
+            ref(to);
+            graph.addEdge(from.label(), to.label());
+        }
+        recorder.edge(from, to, before, before + 1);
+    }
+
+    private void unapply(Call c) {
+        if (c.to == null) return;
+        String from = c.from.label(), to = c.to.label();
+        Map<String, Integer> out = multiplicity.get(from);
+        int before = out.get(to);
+        if (before == 1) {
+            out.remove(to);
+            if (out.isEmpty()) multiplicity.remove(from);
+            graph.removeEdge(from, to);
+            unref(from);
+            unref(to);
+        } else {
+            out.put(to, before - 1);
+        }
+        recorder.edge(c.from, c.to, before, before - 1);
+        c.from = c.to = null;
+    }
+
+    private void ref(MethodNode node) {
+        String label = node.label();
+        int r = refs.getOrDefault(label, 0);
+        refs.put(label, r + 1);
+        if (r == 0) {
+            nodes.put(label, node);
+            graph.addNode(label);
+            recorder.node(label, true);
+        }
+    }
+
+    private void unref(String label) {
+        int r = refs.get(label);
+        if (r > 1) {
+            refs.put(label, r - 1);
+            return;
+        }
+        refs.remove(label);
+        nodes.remove(label);
+        graph.removeNode(label);
+        recorder.node(label, false);
+    }
+
+    private MethodNode nodeOf(String key) {
+        List<Def> ds = defs.get(key);
+        return (ds != null) ? ds.get(ds.size() - 1).node : null;
+    }
+
+    private static String labelOf(MethodNode node) {
+        return (node != null) ? node.label() : null;
+    }
+
+    private static List<Call> calls(Map<String, Set<Call>> index, String key) {
+        Set<Call> s = index.get(key);
+        return (s != null) ? new ArrayList<>(s) : Collections.<Call>emptyList();
+    }
+
+    private static void index(Map<String, Set<Call>> index, String key, Call c, boolean add) {
+        if (add) {
+            index.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(c);
+        } else {
+            Set<Call> s = index.get(key);
+            if (s != null && s.remove(c) && s.isEmpty()) index.remove(key);
+        }
+    }
+
+    // -------------------- helpers --------------------
+
+    private static String methodKey(MethodInfo mi, String ownerQN) {
+        if (mi.methodKey != null && !mi.methodKey.startsWith("NO_BINDING:")) return mi.methodKey;
+        String params = (mi.parameterTypes == null) ? "" : String.join(",", mi.parameterTypes);
+        return ownerQN + "#" + mi.name + "(" + params + ")";
+    }
+
+    private static String qnOf(ClassInfo ci) {
+        if (ci.qualifiedName != null && !ci.qualifiedName.isEmpty()) return ci.qualifiedName;
+        if (ci.packageName != null && !ci.packageName.isEmpty()) return ci.packageName + "." + ci.className;
+        return ci.className;
+    }
+
+    // -------------------- changements --------------------
+
+    /** Changements produits par une mise à jour (effet net : un arc retiré puis remis n'y figure pas). */
+    public static final class ChangeSet {
+        public final Set<String> addedNodes;
+        public final Set<String> removedNodes;
+        public final List<EdgeChange> edges;        // arcs dont la multiplicité a changé
+        public final Set<String> classes;           // classes du projet ayant un arc changé (appelant ou appelé)
+
+        ChangeSet(Set<String> addedNodes, Set<String> removedNodes, List<EdgeChange> edges, Set<String> classes) {
+            this.addedNodes = Collections.unmodifiableSet(addedNodes);
+            this.removedNodes = Collections.unmodifiableSet(removedNodes);
+            this.edges = Collections.unmodifiableList(edges);
+            this.classes = Collections.unmodifiableSet(classes);
+        }
+
+        public boolean isEmpty() {
+            return addedNodes.isEmpty() && removedNodes.isEmpty() && edges.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "+" + addedNodes.size() + "/-" + removedNodes.size() + " noeuds, "
+                    + edges.size() + " arcs modifiés, " + classes.size() + " classes touchées";
+        }
+
+        /** Accumule les changements d'une mise à jour. */
+        static final class Recorder {
+            private final Map<String, Boolean> nodes = new LinkedHashMap<>();   // libellé -> ajouté (net)
+            private final Map<List<String>, Edge> edges = new LinkedHashMap<>();  // (from, to) -> multiplicités
+
+            void node(String label, boolean added) {
+                Boolean prev = nodes.get(label);
+                if (prev != null && prev != added) nodes.remove(label);   // ajouté puis retiré (ou l'inverse)
+                else nodes.put(label, added);
+            }
+
+            /** Arc et multiplicités avant (première mise à jour) et après (dernière). */
+            private static final class Edge {
+                final MethodNode from, to;
+                final int before;
+                int after;
+
+                Edge(MethodNode from, MethodNode to, int before, int after) {
+                    this.from = from;
+                    this.to = to;
+                    this.before = before;
+                    this.after = after;
+                }
+            }
+
+            void edge(MethodNode from, MethodNode to, int before, int after) {
+                List<String> key = Arrays.asList(from.label(), to.label());
+                Edge e = edges.get(key);
+                if (e == null) edges.put(key, new Edge(from, to, before, after));
+                else e.after = after;
+            }
+
+            ChangeSet build() {
+                Set<String> added = new LinkedHashSet<>(), removed = new LinkedHashSet<>();
+                for (Map.Entry<String, Boolean> e : nodes.entrySet()) (e.getValue() ? added : removed).add(e.getKey());
+                List<EdgeChange> changes = new ArrayList<>();
+                Set<String> classes = new LinkedHashSet<>();
+                for (Edge e : edges.values()) {
+                    if (e.before == e.after) continue;
+                    changes.add(new EdgeChange(e.from.label(), e.to.label(), e.before, e.after));
+                    if (!e.from.external) classes.add(e.from.owner);
+                    if (!e.to.external) classes.add(e.to.owner);
+                }
+                return new ChangeSet(added, removed, changes, classes);
+            }
+        }
+    }
+
+    /** Multiplicité d'un arc avant et après la mise à jour (0 : arc absent). */
+    public static final class EdgeChange {
+        public final String from;
+        public final String to;
+        public final int before;
+        public final int after;
+
+        EdgeChange(String from, String to, int before, int after) {
+            this.from = from;
+            this.to = to;
+            this.before = before;
+            this.after = after;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package metrics;
+
+import model.MethodCallInfo;
+import model.MethodInfo;
+
+import java.util.Objects;
+
+/**
+ * Noeud du graphe d'appels au niveau méthode : classe propriétaire, signature et origine (méthode du
+ * projet ou appel externe), conservées telles qu'extraites. Le propriétaire se lit dans un champ au
+ * lieu d'être retrouvé dans le libellé affiché, qui n'est construit qu'à la première demande.
+ */
+public final class MethodNode {
+
+    /** Nom qualifié de la classe propriétaire (arguments génériques ôtés), ou null si inconnu. */
+    public final String owner;
+    /** "nom(paramètres)" pour une méthode du projet ; signature extraite pour un appel externe. */
+    public final String signature;
+    /** Appel vers une méthode absente du projet (noeud "[EXT]"). */
+    public final boolean external;
+    private String label;
+
+    private MethodNode(String owner, String signature, boolean external) {
+        this.owner = owner;
+        this.signature = signature;
+        this.external = external;
+    }
+
+    /**
+     * Méthode du projet.
+     * @param m
+     * @param ownerQN nom qualifié de sa classe
+     * @return
+     */
+    public static MethodNode of(MethodInfo m, String ownerQN) {
+        String params = (m.parameterTypes == null) ? "" : String.join(",", m.parameterTypes);
+        return new MethodNode(ownerQN, m.name + "(" + params + ")", false);
+    }
+
+    /**
+     * Méthode appelée hors projet : le propriétaire est le type déclarant (à défaut, le type statique du
+     * receveur quand la signature n'a pas été résolue).
+     * @param call
+     * @return
+     */
+    public static MethodNode external(MethodCallInfo call) {
+        String targetOwner = (call.declaringType != null ? call.declaringType : call.receiverStaticType);
+        String sig;
+        String owner;
+        if (call.qualifiedSignature != null) {
+            sig = call.qualifiedSignature;
+            owner = call.declaringType;
+        } else {
+            sig = (targetOwner != null ? targetOwner + "." + call.name + "(...)" : call.name + "(...)");
+            owner = targetOwner;
+        }
+        return new MethodNode(erase(owner), sig, true);
+    }
+
+    /** Libellé affiché et exporté : "Owner.m(T1,T2)", ou "[EXT] " suivi de la signature. */
+    public String label() {
+        String l = label;
+        if (l == null) {
+            l = external ? "[EXT] " + signature : owner + "." + signature;
+            label = l;
+        }
+        return l;
+    }
+
+    /**
+     * Même noeud : même signature pour un appel externe (le libellé n'affiche qu'elle), même
+     * propriétaire et même signature pour une méthode du projet.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MethodNode)) return false;
+        MethodNode n = (MethodNode) o;
+        return external == n.external && signature.equals(n.signature) && (external || Objects.equals(owner, n.owner));
+    }
+
+    @Override
+    public int hashCode() {
+        return external ? ~signature.hashCode() : 31 * Objects.hashCode(owner) + signature.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return label();
+    }
+
+    private static String erase(String type) {
+        if (type == null) return null;
+        int lt = type.indexOf('<');
+        return (lt >= 0 ? type.substring(0, lt) : type).trim().replace('$', '.');
+    }
+}
@@ -1,6 +1,7 @@
 package metrics;
 
 import model.ClassInfo;
+import model.FileMetrics;
 import model.MethodCallInfo;
 import model.MethodInfo;
 import org.eclipse.core.runtime.Assert;
@@ -13,7 +14,7 @@ public class MetricsCalculator {
        public float couplage;
     }
 
-    public static Metrics compute(List<ClassInfo> classes, Map<String, Integer> filePathToLOC, Set<String> packages) {
+    public static Metrics compute(List<ClassInfo> classes, Map<String, FileMetrics> files, Set<String> packages) {
         Metrics m = new Metrics();
 
 
@@ -45,6 +46,34 @@ public class MetricsCalculator {
                                           ClassInfo A, ClassInfo B) {
         if (methodGraph == null || classes == null || A == null || B == null || A == B) return 0f;
 
+        // Un parcours du graphe par appel ; pour de nombreuses paires, passer par CouplingMatrix ou un CouplingService
+        return scanCoupling(methodGraph, classes, A, B, false);
+    }
+
+    /**
+     * Couplage pondéré par le nombre d'appels : appels entre A et B (multiplicités des arêtes) /
+     * appels du graphe. Sur un graphe sans multiplicités, chaque arête compte pour un appel.
+     * @param methodGraph
+     * @param classes
+     * @param A
+     * @param B
+     * @return
+     */
+    public static float calculateWeightedCoupling(CallGraphBuilder.DiGraph<String> methodGraph,
+                                                  List<ClassInfo> classes,
+                                                  ClassInfo A, ClassInfo B) {
+        if (methodGraph == null || classes == null || A == null || B == null || A == B) return 0f;
+
+        return scanCoupling(methodGraph, classes, A, B, true);
+    }
+
+    /**
+     * Calcul direct en un parcours du graphe, sans index : arêtes (ou appels si {@code weighted})
+     * entre A et B rapportées à celles du graphe.
+     */
+    private static float scanCoupling(CallGraphBuilder.DiGraph<String> methodGraph,
+                                      List<ClassInfo> classes,
+                                      ClassInfo A, ClassInfo B, boolean weighted) {
         Map<String,String> simple2fqn = new HashMap<>();
         Set<String> fqns = new HashSet<>();
         for (ClassInfo ci : classes) {
@@ -58,10 +87,40 @@ public class MetricsCalculator {
 
         long numerator = 0, denominator = 0;
 
+        if (methodGraph instanceof CsrGraph.View) {
+            // Graphe CSR : propriétaire lu dans la description du noeud, multiplicité portée par l'arête
+            CsrGraph csr = ((CsrGraph.View) methodGraph).csr();
+            int n = csr.nodeCount();
+            boolean same = qnA.equals(qnB);
+            byte[] side = new byte[n];  // 1 : A, 2 : B, 0 : autre
+            for (int v = 0; v < n; v++) {
+                MethodNode described = csr.node(v);
+                String owner = (described == null) ? ownerOfMethodNodeAllowExt(csr.label(v))
+                        : (described.owner != null ? described.owner : "[EXT]");
+                owner = canonicalOwner(owner, fqns, simple2fqn);
+                side[v] = owner.equals(qnA) ? (byte) 1 : owner.equals(qnB) ? (byte) 2 : (byte) 0;
+            }
+            for (int v = 0; v < n; v++) {
+                for (int e = csr.outBegin(v); e < csr.outEnd(v); e++) {
+                    long w = weighted ? csr.weight(e) : 1;
+                    denominator += w;
+                    int to = csr.target(e);
+                    if (side[v] != 0 && side[to] != 0 && (side[v] != side[to] || same)) numerator += w;
+                }
+            }
+            return denominator == 0 ? 0f : (float) numerator / (float) denominator;
+        }
+
+        // sans multiplicités : un appel par arête
+        Map<String, String> ownerOfNode = new HashMap<>(methodGraph.nodes().size() * 2);
+        for (String node : methodGraph.nodes()) {
+            ownerOfNode.put(node, canonicalOwner(ownerOfMethodNodeAllowExt(node), fqns, simple2fqn));
+        }
+
         for (Map.Entry<String, Set<String>> e : methodGraph.edges().entrySet()) {
-            String fromOwner = canonicalOwner(ownerOfMethodNodeAllowExt(e.getKey()), fqns, simple2fqn);
+            String fromOwner = ownerOfNode.get(e.getKey());
             for (String toNode : e.getValue()) {
-                String toOwner = canonicalOwner(ownerOfMethodNodeAllowExt(toNode), fqns, simple2fqn);
+                String toOwner = ownerOfNode.get(toNode);
 
                 denominator++;
 
@@ -89,7 +148,7 @@ public class MetricsCalculator {
         return owner;
     }
 
-    private static String ownerOfMethodNodeAllowExt(String nodeLabel) {
+    static String ownerOfMethodNodeAllowExt(String nodeLabel) {
         if (nodeLabel == null) return null;
         String s = nodeLabel.trim();
         if (s.startsWith("[EXT]")) s = s.substring(5).trim();
@@ -41,8 +41,9 @@ public final class ModuleIdentifier {
         final int M = all.size();
         final int maxModules = Math.max(1, M / 2);
 
+        Scratch scratch = new Scratch(CouplingService.matrixOf(couplingFn, null));
         List<ClusterMod> modules = new ArrayList<>();
-        modules.add(new ClusterMod(root, avgPairwise(root.members, couplingFn)));
+        modules.add(new ClusterMod(root, avgPairwise(root.members, couplingFn, scratch)));
 
         while (true) {
             int idxWorst = -1;
@@ -64,8 +65,8 @@ public final class ModuleIdentifier {
             ClusterMod victim = modules.remove(idxWorst);
             Node L = victim.node.left;
             Node R = victim.node.right;
-            modules.add(new ClusterMod(L, avgPairwise(L.members, couplingFn)));
-            modules.add(new ClusterMod(R, avgPairwise(R.members, couplingFn)));
+            modules.add(new ClusterMod(L, avgPairwise(L.members, couplingFn, scratch)));
+            modules.add(new ClusterMod(R, avgPairwise(R.members, couplingFn, scratch)));
         }
 
         return toResult(modules, true);
@@ -85,6 +86,22 @@ public final class ModuleIdentifier {
         }
     }
 
+    /**
+     * Tableaux de travail partagés par toutes les évaluations d'un même parcours, quand la fonction de
+     * couplage a une matrice : {@code pos} est remis à -1 après chaque module.
+     */
+    private static final class Scratch {
+        final CouplingMatrix matrix;
+        final int[] pos;                    // classe -> position dans le module évalué, ou -1
+        long[] later = new long[16];
+
+        Scratch(CouplingMatrix matrix) {
+            this.matrix = matrix;
+            this.pos = (matrix != null) ? new int[matrix.size()] : null;
+            if (pos != null) Arrays.fill(pos, -1);
+        }
+    }
+
     private static Result toResult(List<ClusterMod> list, boolean feasible) {
         List<Set<ClassInfo>> mods = new ArrayList<>();
         List<Double> avgs = new ArrayList<>();
@@ -98,9 +115,10 @@ public final class ModuleIdentifier {
     }
 
     /** Couplage moyen de toutes les paires {i<j} au sein d’un ensemble de classes. */
-    private static double avgPairwise(Set<ClassInfo> members, Coupling cpl) {
+    private static double avgPairwise(Set<ClassInfo> members, Coupling cpl, Scratch scratch) {
         int n = members.size();
         if (n <= 1) return 1.0; // convention : singleton = parfaitement "cohérent"
+        if (scratch.matrix != null) return avgPairwise(members, scratch.matrix, scratch);
         List<ClassInfo> list = new ArrayList<>(members);
         double sum = 0.0;
         int pairs = 0;
@@ -115,5 +133,43 @@ public final class ModuleIdentifier {
         return (pairs == 0) ? 1.0 : (sum / pairs);
     }
 
+    /**
+     * Même moyenne, en ne lisant que les paires non nulles de la matrice ; elles sont ajoutées dans
+     * l'ordre de la double boucle (les termes nuls ne changent pas la somme).
+     */
+    private static double avgPairwise(Set<ClassInfo> members, CouplingMatrix m, Scratch scratch) {
+        int n = members.size();
+        int[] pos = scratch.pos;
+        int[] cls = new int[n];
+        int p = 0;
+        for (ClassInfo c : members) {
+            cls[p] = m.symbols.classIndex(c);
+            if (cls[p] >= 0) pos[cls[p]] = p;
+            p++;
+        }
+
+        double sum = 0.0;
+        long[] later = scratch.later;
+        for (int i = 0; i < n; i++) {
+            if (cls[i] < 0) continue;
+            // voisins placés après i dans l'ensemble, triés par position
+            int size = 0;
+            for (int k = m.rowBegin(cls[i]); k < m.rowEnd(cls[i]); k++) {
+                int j = pos[m.column(k)];
+                if (j <= i) continue;
+                if (size == later.length) later = Arrays.copyOf(later, size * 2);
+                later[size++] = ((long) j << 32) | k;
+            }
+            Arrays.sort(later, 0, size);
+            for (int q = 0; q < size; q++) sum += clamp01(m.value((int) later[q]));
+        }
+        scratch.later = later;
+        for (int c : cls) {
+            if (c >= 0) pos[c] = -1;
+        }
+        long pairs = (long) n * (n - 1) / 2;
+        return sum / pairs;
+    }
+
     private static double clamp01(double v) { return (v < 0) ? 0 : (v > 1 ? 1 : v); }
 }
@@ -0,0 +1,94 @@
+package metrics;
+
+import model.ClassInfo;
+
+import java.util.*;
+
+/**
+ * Compare des modules identifiés à une partition de référence (ex. modules plantés par
+ * {@code analysis.ProjectGenerator}) : indice de Rand ajusté et précision / rappel sur les paires
+ * de classes regroupées. Calcul par table de contingence, linéaire en nombre de classes.
+ */
+public final class ModuleRecovery {
+
+    private ModuleRecovery() {}
+
+    public static final class Score {
+        public final double adjustedRand;   // 1 = partition retrouvée, ~0 = hasard
+        public final double pairPrecision;  // paires regroupées à tort
+        public final double pairRecall;     // paires de référence regroupées
+        public final int classes;           // classes présentes des deux côtés
+        public final int modules;
+        public final int expectedModules;
+
+        Score(double adjustedRand, double pairPrecision, double pairRecall, int classes, int modules, int expectedModules) {
+            this.adjustedRand = adjustedRand;
+            this.pairPrecision = pairPrecision;
+            this.pairRecall = pairRecall;
+            this.classes = classes;
+            this.modules = modules;
+            this.expectedModules = expectedModules;
+        }
+
+        public double pairF1() {
+            return (pairPrecision + pairRecall == 0) ? 0 : 2 * pairPrecision * pairRecall / (pairPrecision + pairRecall);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "ARI %.3f, paires : précision %.3f rappel %.3f F1 %.3f (%d modules pour %d attendus, %d classes)",
+                    adjustedRand, pairPrecision, pairRecall, pairF1(), modules, expectedModules, classes);
+        }
+    }
+
+    /**
+     * Score des modules identifiés par rapport à la partition attendue.
+     * @param expected nom qualifié de classe -> identifiant du module attendu
+     * @param result modules identifiés
+     * @return
+     */
+    public static Score score(Map<String, Integer> expected, ModuleIdentifier.Result result) {
+        // Table de contingence (module identifié, module attendu) -> nombre de classes
+        Map<Long, Integer> cells = new HashMap<>();
+        Map<Integer, Integer> expectedSizes = new HashMap<>();
+        int[] foundSizes = new int[result.modules.size()];
+        int n = 0;
+        for (int m = 0; m < result.modules.size(); m++) {
+            for (ClassInfo ci : result.modules.get(m)) {
+                Integer e = expected.get(qnOf(ci));
+                if (e == null) continue;
+                cells.merge(((long) m << 32) | (e & 0xffffffffL), 1, Integer::sum);
+                expectedSizes.merge(e, 1, Integer::sum);
+                foundSizes[m]++;
+                n++;
+            }
+        }
+
+        double together = 0, foundPairs = 0, expectedPairs = 0;
+        for (int c : cells.values()) together += pairs(c);
+        for (int c : foundSizes) foundPairs += pairs(c);
+        for (int c : expectedSizes.values()) expectedPairs += pairs(c);
+        double all = pairs(n);
+
+        double chance = (all == 0) ? 0 : foundPairs * expectedPairs / all;
+        double max = (foundPairs + expectedPairs) / 2;
+        double ari = (max == chance) ? 1.0 : (together - chance) / (max - chance);
+
+        int nonEmpty = 0;
+        for (int c : foundSizes) if (c > 0) nonEmpty++;
+        return new Score(ari,
+                (foundPairs == 0) ? 1.0 : together / foundPairs,
+                (expectedPairs == 0) ? 1.0 : together / expectedPairs,
+                n, nonEmpty, expectedSizes.size());
+    }
+
+    private static double pairs(long k) {
+        return k * (k - 1) / 2.0;
+    }
+
+    private static String qnOf(ClassInfo ci) {
+        if (ci.qualifiedName != null && !ci.qualifiedName.isEmpty()) return ci.qualifiedName;
+        if (ci.packageName != null && !ci.packageName.isEmpty()) return ci.packageName + "." + ci.className;
+        return ci.className;
+    }
+}
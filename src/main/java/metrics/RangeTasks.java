@@ -0,0 +1,70 @@
+package metrics;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Découpage d'un intervalle d'indices [0, n) en tranches traitées sur un {@link ForkJoinPool} :
+ * chaque tranche produit son propre accumulateur, puis les accumulateurs sont fusionnés deux à deux,
+ * toujours dans l'ordre (tranche de gauche, tranche de droite). Le résultat ne dépend donc pas du
+ * nombre de threads dès que la fusion est déterministe (sommes entières, concaténations ordonnées).
+ * <p>
+ * En dessous d'une tranche, ou sans parallélisme disponible, le corps est appelé une seule fois sur
+ * tout l'intervalle, sur le thread appelant.
+ * </p>
+ */
+final class RangeTasks {
+
+    private RangeTasks() {}
+
+    /** Traitement d'une tranche [from, to), avec un accumulateur local. */
+    interface Body<A> {
+        A run(int from, int to);
+    }
+
+    /** Fusion de deux accumulateurs de tranches consécutives (gauche puis droite). */
+    interface Merge<A> {
+        A merge(A left, A right);
+    }
+
+    /**
+     * @param n taille de l'intervalle
+     * @param grain taille minimale d'une tranche
+     * @param body
+     * @param merge
+     * @return l'accumulateur de tout l'intervalle
+     */
+    static <A> A reduce(int n, int grain, Body<A> body, Merge<A> merge) {
+        return reduce(ForkJoinPool.commonPool(), n, grain, body, merge);
+    }
+
+    static <A> A reduce(ForkJoinPool pool, int n, int grain, Body<A> body, Merge<A> merge) {
+        if (n <= grain || pool.getParallelism() <= 1) return body.run(0, n);
+        return pool.invoke(new Task<>(0, n, Math.max(1, grain), body, merge));
+    }
+
+    private static final class Task<A> extends RecursiveTask<A> {
+        private static final long serialVersionUID = 1L;
+        private final int from, to, grain;
+        private final Body<A> body;
+        private final Merge<A> merge;
+
+        Task(int from, int to, int grain, Body<A> body, Merge<A> merge) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.body = body;
+            this.merge = merge;
+        }
+
+        @Override
+        protected A compute() {
+            if (to - from <= grain) return body.run(from, to);
+            int mid = (from + to) >>> 1;
+            Task<A> left = new Task<>(from, mid, grain, body, merge);
+            left.fork();
+            A right = new Task<>(mid, to, grain, body, merge).compute();
+            return merge.merge(left.join(), right);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package metrics;
+
+import model.ClassInfo;
+import model.MethodInfo;
+import model.SymbolTable;
+import model.TypeHierarchy;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Accessibilité dans un graphe d'appels {@link CsrGraph} : ensembles de noeuds atteignables sous forme
+ * de bitsets ({@code long[]}, un bit par noeud), parcours itératifs sur le graphe condensé
+ * ({@link StronglyConnected}). Tous les noeuds d'une composante atteignent le même ensemble : les
+ * résultats sont mis en cache par composante et réutilisés par les parcours suivants.
+ * Les requêtes peuvent être lancées depuis plusieurs threads.
+ */
+public final class Reachability {
+    private final CsrGraph graph;
+    private final StronglyConnected scc;
+    private final Map<Integer, long[]> cache;     // composante -> composantes atteignables (bitset)
+
+    /**
+     * @param graph
+     */
+    public Reachability(CsrGraph graph) {
+        this(graph, 1024);
+    }
+
+    /**
+     * @param graph
+     * @param cacheSize nombre max de composantes dont l'ensemble atteignable est gardé (LRU)
+     */
+    public Reachability(CsrGraph graph, final int cacheSize) {
+        this.graph = graph;
+        this.scc = StronglyConnected.of(graph);
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<Integer, long[]>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<Integer, long[]> e) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public CsrGraph graph() { return graph; }
+    public StronglyConnected components() { return scc; }
+
+    /**
+     * Noeuds atteignables depuis {@code v} ({@code v} compris).
+     * @param v
+     * @return bitset sur les noeuds du graphe
+     */
+    public long[] reachableFrom(int v) {
+        return expand(reachableComponents(scc.component(v)));
+    }
+
+    /**
+     * Noeuds atteignables depuis au moins une des sources (sources comprises), en un seul parcours.
+     * @param sources
+     * @return bitset sur les noeuds du graphe
+     */
+    public long[] reachableFrom(int[] sources) {
+        int[] starts = new int[sources.length];
+        for (int i = 0; i < sources.length; i++) starts[i] = scc.component(sources[i]);
+        return expand(traverse(starts));
+    }
+
+    /**
+     * Une requête par source, réparties sur {@code threads} threads.
+     * @param sources
+     * @param threads
+     * @return un bitset par source, dans l'ordre des sources
+     */
+    public List<long[]> reachableFromEach(final int[] sources, int threads) {
+        final long[][] out = new long[sources.length][];
+        int workers = Math.max(1, Math.min(threads, sources.length));
+        if (workers <= 1) {
+            for (int i = 0; i < sources.length; i++) out[i] = reachableFrom(sources[i]);
+            return Arrays.asList(out);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "reachability");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                final int first = w, step = workers;
+                futures.add(pool.submit(() -> {
+                    for (int i = first; i < sources.length; i += step) out[i] = reachableFrom(sources[i]);
+                }));
+            }
+            // Future.get() garantit la visibilité des écritures de chaque worker
+            for (Future<?> f : futures) f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Requêtes interrompues", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Echec d'une requête d'accessibilité", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return Arrays.asList(out);
+    }
+
+    /** Composantes atteignables depuis la composante c, mises en cache. */
+    private long[] reachableComponents(int c) {
+        long[] r = cache.get(c);
+        if (r == null) {
+            r = traverse(new int[]{c});
+            cache.put(c, r);
+        }
+        return r;
+    }
+
+    /**
+     * Parcours en profondeur itératif du DAG des composantes. Une composante dont l'ensemble est en
+     * cache n'est pas descendue : son ensemble (déjà clos) est fusionné mot à mot.
+     */
+    private long[] traverse(int[] starts) {
+        long[] seen = new long[words(scc.count())];
+        int[] stack = new int[scc.count()];
+        int sp = 0;
+        for (int c : starts) {
+            if (!contains(seen, c)) {
+                set(seen, c);
+                stack[sp++] = c;
+            }
+        }
+        while (sp > 0) {
+            int c = stack[--sp];
+            long[] known = cache.get(c);
+            if (known != null) {
+                for (int i = 0; i < seen.length; i++) seen[i] |= known[i];
+                continue;
+            }
+            for (int i = scc.dagBegin(c); i < scc.dagEnd(c); i++) {
+                int d = scc.dagTarget(i);
+                if (!contains(seen, d)) {
+                    set(seen, d);
+                    stack[sp++] = d;
+                }
+            }
+        }
+        return seen;
+    }
+
+    /** Bitset sur les composantes -> bitset sur les noeuds. */
+    private long[] expand(long[] components) {
+        long[] nodes = new long[words(graph.nodeCount())];
+        for (int w = 0; w < components.length; w++) {
+            long word = components[w];
+            while (word != 0) {
+                int c = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                for (int i = scc.memberBegin(c); i < scc.memberEnd(c); i++) set(nodes, scc.member(i));
+            }
+        }
+        return nodes;
+    }
+
+    // -------------------- bitsets --------------------
+
+    public static int words(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    public static boolean contains(long[] bits, int i) {
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    static void set(long[] bits, int i) {
+        bits[i >>> 6] |= 1L << i;
+    }
+
+    public static int cardinality(long[] bits) {
+        int c = 0;
+        for (long w : bits) c += Long.bitCount(w);
+        return c;
+    }
+
+    /** Indices des bits à 1, croissants. */
+    public static int[] toArray(long[] bits) {
+        int[] out = new int[cardinality(bits)];
+        int k = 0;
+        for (int w = 0; w < bits.length; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                out[k++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return out;
+    }
+
+    // -------------------- code mort --------------------
+
+    /** Résultat d'une recherche de code mort. */
+    public static final class DeadCode {
+        public final List<String> entryPoints;    // noeuds de départ
+        public final List<String> unreachable;    // méthodes du projet non atteintes, dans l'ordre du graphe
+        public final int projectMethods;          // noeuds "projet" du graphe (hors [EXT])
+
+        DeadCode(List<String> entryPoints, List<String> unreachable, int projectMethods) {
+            this.entryPoints = Collections.unmodifiableList(entryPoints);
+            this.unreachable = Collections.unmodifiableList(unreachable);
+            this.projectMethods = projectMethods;
+        }
+    }
+
+    /**
+     * Méthodes du projet non atteignables depuis les points d'entrée : les {@code main(String[])} et,
+     * si demandé, l'API publique (méthodes publiques et méthodes d'interfaces). Les appels sont ceux du
+     * graphe : une méthode appelée seulement par liaison dynamique (redéfinition) n'est pas atteinte.
+     * Les appels implicites {@code super()} (constructeur sans {@code this(...)}/{@code super(...)},
+     * constructeur par défaut) ne sont pas extraits : le constructeur sans paramètre d'une classe étendue
+     * dans le projet est traité comme atteint.
+     * @param classes
+     * @param methodGraph graphe construit par {@link CallGraphBuilder#buildMethodCsr} sur ces classes
+     * @param publicApi
+     * @return
+     */
+    public static DeadCode deadCode(List<ClassInfo> classes, CsrGraph methodGraph, boolean publicApi) {
+        return deadCode(SymbolTable.of(classes), methodGraph, publicApi);
+    }
+
+    /**
+     * Méthodes non atteignables des classes d'une table de symboles (celle du modèle).
+     * @param st
+     * @param methodGraph graphe construit par {@link CallGraphBuilder#buildMethodCsr} sur cette table
+     * @param publicApi
+     * @return
+     */
+    public static DeadCode deadCode(SymbolTable st, CsrGraph methodGraph, boolean publicApi) {
+        List<ClassInfo> classes = st.classes;
+        int[] nodeOf = CallGraphBuilder.methodNodes(st, methodGraph);
+
+        long[] isEntry = new long[words(methodGraph.nodeCount())];
+        for (int k = 0; k < nodeOf.length; k++) {
+            if (nodeOf[k] < 0) continue;
+            MethodInfo mi = st.method(k);
+            if (isMain(mi) || (publicApi && ("public".equals(mi.visibility) || classes.get(st.ownerOf(k)).isInterface))) {
+                set(isEntry, nodeOf[k]);
+            }
+        }
+        int[] entries = toArray(isEntry);
+        long[] roots = isEntry.clone();
+        for (int v : implicitSuperConstructors(st, nodeOf)) set(roots, v);
+        long[] reached = new Reachability(methodGraph, 0).reachableFrom(toArray(roots));
+
+        List<String> entryLabels = CallGraphQuery.labels(methodGraph, entries);
+        List<String> unreachable = new ArrayList<>();
+        int projectMethods = 0;
+        for (int v = 0; v < methodGraph.nodeCount(); v++) {
+            String label = methodGraph.label(v);
+            if (label.startsWith("[EXT]")) continue;
+            projectMethods++;
+            if (!contains(reached, v)) unreachable.add(label);
+        }
+        return new DeadCode(entryLabels, unreachable, projectMethods);
+    }
+
+    /** Noeuds des constructeurs sans paramètre des classes dont une classe du projet hérite. */
+    private static int[] implicitSuperConstructors(SymbolTable st, int[] nodeOf) {
+        TypeHierarchy h = TypeHierarchy.of(st);
+        boolean[] extended = new boolean[h.typeCount()];
+        for (int t = 0; t < h.typeCount(); t++) {
+            int s = h.isProjectType(t) ? h.superClass(t) : -1;
+            if (s >= 0) extended[s] = true;
+        }
+        int[] out = new int[nodeOf.length];
+        int n = 0;
+        for (int k = 0; k < nodeOf.length; k++) {
+            if (nodeOf[k] < 0) continue;
+            MethodInfo mi = st.method(k);
+            ClassInfo owner = st.classes.get(st.ownerOf(k));
+            if (mi.returnType == null && mi.name.equals(owner.className) && mi.parameterTypes.isEmpty()
+                    && extended[st.nameOf(st.ownerOf(k))]) {
+                out[n++] = nodeOf[k];
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static boolean isMain(MethodInfo mi) {
+        if (!"main".equals(mi.name) || mi.parameterTypes == null || mi.parameterTypes.size() != 1) return false;
+        String t = mi.parameterTypes.get(0);
+        return t.equals("String[]") || t.equals("java.lang.String[]");
+    }
+}
@@ -0,0 +1,216 @@
+package metrics;
+
+import java.util.*;
+
+/**
+ * Composantes fortement connexes d'un {@link CsrGraph} (Tarjan itératif : pas de récursion, donc pas
+ * de débordement de pile sur les longues chaînes d'appels) et graphe condensé, qui est un DAG.
+ * Les composantes sont numérotées dans l'ordre où Tarjan les ferme : un arc du DAG va toujours
+ * d'une composante vers une composante de numéro inférieur.
+ */
+public final class StronglyConnected {
+    private final CsrGraph graph;
+    private final int[] component;        // noeud -> composante
+    private final int count;
+    private final int[] memberOffsets;    // composante c : members[memberOffsets[c] .. memberOffsets[c+1]-1]
+    private final int[] members;
+    private final int[] dagOffsets;       // arcs du DAG, dédoublonnés
+    private final int[] dagTargets;
+
+    private StronglyConnected(CsrGraph graph, int[] component, int count, int[] memberOffsets, int[] members,
+                              int[] dagOffsets, int[] dagTargets) {
+        this.graph = graph;
+        this.component = component;
+        this.count = count;
+        this.memberOffsets = memberOffsets;
+        this.members = members;
+        this.dagOffsets = dagOffsets;
+        this.dagTargets = dagTargets;
+    }
+
+    public CsrGraph graph() { return graph; }
+    public int count() { return count; }
+    public int component(int v) { return component[v]; }
+
+    /** Noeuds de la composante : {@code member(i)} pour i de {@code memberBegin(c)} à {@code memberEnd(c)} exclu. */
+    public int memberBegin(int c) { return memberOffsets[c]; }
+    public int memberEnd(int c) { return memberOffsets[c + 1]; }
+    public int size(int c) { return memberOffsets[c + 1] - memberOffsets[c]; }
+    public int member(int i) { return members[i]; }
+
+    /** Successeurs de la composante dans le DAG : {@code dagTarget(i)} pour i de {@code dagBegin(c)} à {@code dagEnd(c)} exclu. */
+    public int dagBegin(int c) { return dagOffsets[c]; }
+    public int dagEnd(int c) { return dagOffsets[c + 1]; }
+    public int dagTarget(int i) { return dagTargets[i]; }
+    public int dagEdgeCount() { return dagTargets.length; }
+
+    /**
+     * Composante cyclique : plusieurs noeuds, ou un seul noeud qui s'appelle lui-même (récursion directe).
+     * @param c
+     * @return
+     */
+    public boolean isCyclic(int c) {
+        if (size(c) > 1) return true;
+        int v = members[memberOffsets[c]];
+        for (int e = graph.outBegin(v); e < graph.outEnd(v); e++) if (graph.target(e) == v) return true;
+        return false;
+    }
+
+    /** Composantes cycliques, de la plus grande à la plus petite (à taille égale, par numéro). */
+    public List<Integer> cyclic() {
+        List<Integer> out = new ArrayList<>();
+        for (int c = 0; c < count; c++) if (isCyclic(c)) out.add(c);
+        Collections.sort(out, (a, b) -> (size(a) != size(b)) ? Integer.compare(size(b), size(a)) : Integer.compare(a, b));
+        return out;
+    }
+
+    /** Libellés des noeuds de la composante, dans l'ordre du graphe. */
+    public List<String> labels(int c) {
+        List<String> out = new ArrayList<>(size(c));
+        for (int i = memberOffsets[c]; i < memberOffsets[c + 1]; i++) out.add(graph.label(members[i]));
+        return out;
+    }
+
+    /**
+     * Couche de chaque composante dans le DAG : 0 pour une composante sans successeur, sinon
+     * 1 + la couche maximale de ses successeurs (longueur du plus long chemin vers un puits).
+     * @return
+     */
+    public int[] layers() {
+        int[] layer = new int[count];
+        // Les successeurs d'une composante ont un numéro inférieur : un seul passage croissant suffit
+        for (int c = 0; c < count; c++) {
+            for (int i = dagOffsets[c]; i < dagOffsets[c + 1]; i++) {
+                int d = dagTargets[i];
+                if (layer[d] + 1 > layer[c]) layer[c] = layer[d] + 1;
+            }
+        }
+        return layer;
+    }
+
+    /**
+     * Graphe condensé au format {@link CsrGraph} : un noeud par composante (libellé du premier membre,
+     * suivi de "(+k)" s'il y en a d'autres), un arc par paire de composantes reliées, de multiplicité
+     * le nombre d'arcs du graphe d'origine entre elles.
+     * @return
+     */
+    public CsrGraph condensation() {
+        CsrGraph.Builder b = new CsrGraph.Builder();
+        for (int c = 0; c < count; c++) {
+            String first = graph.label(members[memberOffsets[c]]);
+            b.addNode(size(c) > 1 ? first + " (+" + (size(c) - 1) + ")" : first);
+        }
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            int c = component[v];
+            for (int e = graph.outBegin(v); e < graph.outEnd(v); e++) {
+                int d = component[graph.target(e)];
+                if (d != c) b.addEdge(c, d);
+            }
+        }
+        return b.build();
+    }
+
+    /**
+     * Composantes d'un graphe {@link CallGraphBuilder.DiGraph} (graphe de {@code buildMethodGraph} ou
+     * {@code buildClassGraph}).
+     * @param g
+     * @return
+     */
+    public static StronglyConnected of(CallGraphBuilder.DiGraph<String> g) {
+        return of(CsrGraph.of(g));
+    }
+
+    /**
+     * Calcule les composantes et le graphe condensé.
+     * @param g
+     * @return
+     */
+    public static StronglyConnected of(CsrGraph g) {
+        int n = g.nodeCount();
+        int[] index = new int[n];
+        int[] low = new int[n];
+        Arrays.fill(index, -1);
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];           // pile de Tarjan
+        int sp = 0;
+        int[] callNode = new int[n];        // pile d'appels simulée : noeud et prochain arc à suivre
+        int[] callEdge = new int[n];
+        int[] component = new int[n];
+        int counter = 0, count = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0) continue;
+            int top = 0;
+            callNode[0] = root;
+            callEdge[0] = g.outBegin(root);
+            index[root] = low[root] = counter++;
+            stack[sp++] = root;
+            onStack[root] = true;
+
+            while (top >= 0) {
+                int v = callNode[top];
+                int e = callEdge[top];
+                if (e < g.outEnd(v)) {
+                    callEdge[top] = e + 1;
+                    int w = g.target(e);
+                    if (index[w] < 0) {
+                        index[w] = low[w] = counter++;
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        top++;
+                        callNode[top] = w;
+                        callEdge[top] = g.outBegin(w);
+                    } else if (onStack[w] && index[w] < low[v]) {
+                        low[v] = index[w];
+                    }
+                    continue;
+                }
+                // Tous les successeurs de v sont traités
+                if (low[v] == index[v]) {
+                    int w;
+                    do {
+                        w = stack[--sp];
+                        onStack[w] = false;
+                        component[w] = count;
+                    } while (w != v);
+                    count++;
+                }
+                top--;
+                if (top >= 0) {
+                    int u = callNode[top];
+                    if (low[v] < low[u]) low[u] = low[v];
+                }
+            }
+        }
+
+        // Membres regroupés par composante (tri par comptage, ordre des noeuds conservé)
+        int[] memberOffsets = new int[count + 1];
+        for (int v = 0; v < n; v++) memberOffsets[component[v] + 1]++;
+        for (int c = 0; c < count; c++) memberOffsets[c + 1] += memberOffsets[c];
+        int[] members = new int[n];
+        int[] fill = Arrays.copyOf(memberOffsets, count);
+        for (int v = 0; v < n; v++) members[fill[component[v]]++] = v;
+
+        // Arcs du DAG, dédoublonnés avec un marqueur par composante source
+        int[] dagOffsets = new int[count + 1];
+        int[] dagTargets = new int[16];
+        int size = 0;
+        int[] mark = new int[count];
+        Arrays.fill(mark, -1);
+        for (int c = 0; c < count; c++) {
+            for (int i = memberOffsets[c]; i < memberOffsets[c + 1]; i++) {
+                int v = members[i];
+                for (int e = g.outBegin(v); e < g.outEnd(v); e++) {
+                    int d = component[g.target(e)];
+                    if (d == c || mark[d] == c) continue;
+                    mark[d] = c;
+                    if (size == dagTargets.length) dagTargets = Arrays.copyOf(dagTargets, size * 2);
+                    dagTargets[size++] = d;
+                }
+            }
+            dagOffsets[c + 1] = size;
+        }
+        return new StronglyConnected(g, component, count, memberOffsets, members,
+                dagOffsets, Arrays.copyOf(dagTargets, size));
+    }
+}
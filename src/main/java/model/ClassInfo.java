@@ -1,9 +1,12 @@
 package model;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
-public class ClassInfo {
+public class ClassInfo implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     public String packageName;
     public String className;
     public String qualifiedName;      // si binding résolu
@@ -18,6 +21,8 @@ public class ClassInfo {
     public List<FieldInfo> fields = new ArrayList<>();
     public List<MethodInfo> methods = new ArrayList<>();
 
+    public List<String> imports = new ArrayList<>();   // imports du fichier ("a.b.C" ou "a.b.*")
+
     @Override
     public String toString() {
         return "ClassInfo{" + '\n' +
@@ -1,6 +1,10 @@
 package model;
 
-public class FieldInfo {
+import java.io.Serializable;
+
+public class FieldInfo implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     public String name;
     public String visibility; // public/protected/private/package-private
     public String type;       // type textuel (ou FQN si souhaité)
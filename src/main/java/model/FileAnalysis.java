@@ -0,0 +1,24 @@
+package model;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Résultat de l'analyse d'un fichier source : classes extraites + métriques du fichier.
+ */
+public final class FileAnalysis implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public final String path;          // chemin relatif à la racine des sources
+    public final String packageName;   // null si package par défaut
+    public final FileMetrics metrics;
+    public final List<ClassInfo> classes;
+
+    public FileAnalysis(String path, String packageName, FileMetrics metrics, List<ClassInfo> classes) {
+        this.path = path;
+        this.packageName = packageName;
+        this.metrics = metrics;
+        this.classes = Collections.unmodifiableList(classes);
+    }
+}
@@ -0,0 +1,61 @@
+package model;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Métriques d'un fichier source, indexées par chemin relatif : nombre de lignes et table compacte
+ * des débuts de ligne. La table permet de convertir une position en numéro de ligne
+ * (LOC d'une méthode, etc.) sans garder le source ni l'AST en mémoire.
+ */
+public final class FileMetrics implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public final String path;        // chemin relatif à la racine des sources
+    public final int loc;
+    private final int[] lineStarts;  // lineStarts[i] = position du premier caractère de la ligne i + 1
+
+    public FileMetrics(String path, int[] lineStarts) {
+        this.path = path;
+        this.lineStarts = lineStarts;
+        this.loc = lineStarts.length;
+    }
+
+    /**
+     * Construit la table des lignes à partir d'une unité parsée.
+     * @param path chemin relatif
+     * @param cu
+     * @param sourceLength taille du source en caractères
+     * @return
+     */
+    public static FileMetrics of(String path, CompilationUnit cu, int sourceLength) {
+        int lines = (sourceLength == 0) ? 0 : cu.getLineNumber(sourceLength - 1);
+        int[] starts = new int[Math.max(0, lines)];
+        for (int line = 1; line <= starts.length; line++) {
+            starts[line - 1] = cu.getPosition(line, 0);
+        }
+        return new FileMetrics(path, starts);
+    }
+
+    /**
+     * Numéro de ligne (à partir de 1) d'une position dans le source.
+     * @param position
+     * @return
+     */
+    public int lineOf(int position) {
+        int i = Arrays.binarySearch(lineStarts, position);
+        return (i >= 0) ? i + 1 : -i - 1;
+    }
+
+    /**
+     * Nombre de lignes couvertes par l'intervalle [start, end] (bornes incluses).
+     * @param start
+     * @param end
+     * @return
+     */
+    public int linesBetween(int start, int end) {
+        return Math.max(0, lineOf(end) - lineOf(start) + 1);
+    }
+}
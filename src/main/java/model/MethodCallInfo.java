@@ -1,11 +1,19 @@
 package model;
 
-public class MethodCallInfo {
+import java.io.Serializable;
+
+public class MethodCallInfo implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     public String name;                 // nom simple ou "<init>"
     public String declaringType;        // FQN du type déclarant la méthode appelée
     public String qualifiedSignature;   // Owner.m(T1,T2)->R (vide R pour ctor)
     public String receiverStaticType;
     public String methodKey;
+    public int argumentCount;
+    public int line;                    // ligne de l'appel dans le fichier de la méthode appelante (0 si inconnue)
+    public String receiverExpression;   // sans binding : récepteur textuel (attribut ou nom de type), ou chemin
+                                        // d'attributs depuis receiverStaticType si celui-ci est renseigné
 
     @Override
     public String toString() {
@@ -1,12 +1,16 @@
 package model;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
-public class MethodInfo {
+public class MethodInfo implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     public String name;
     public String visibility;
     public String returnType;
+    public boolean isStatic;
     public List<String> parameterTypes = new ArrayList<>();
 
     public String declaringType;        // FQN du type déclarant (si résolu)
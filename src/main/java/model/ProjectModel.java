@@ -0,0 +1,57 @@
+package model;
+
+import java.util.*;
+
+/**
+ * Modèle immuable d'un projet analysé : classes, métriques par fichier et packages.
+ * Construit une fois l'analyse terminée à partir des résultats par fichier.
+ */
+public final class ProjectModel {
+    public final List<ClassInfo> classes;
+    public final Map<String, FileMetrics> files;      // chemin relatif -> métriques du fichier
+    public final Set<String> packages;
+    public final Map<String, List<ClassInfo>> classesByFile;
+    private SymbolTable symbols;
+
+    private ProjectModel(List<ClassInfo> classes, Map<String, FileMetrics> files,
+                         Set<String> packages, Map<String, List<ClassInfo>> classesByFile) {
+        this.classes = Collections.unmodifiableList(classes);
+        this.files = Collections.unmodifiableMap(files);
+        this.packages = Collections.unmodifiableSet(packages);
+        this.classesByFile = Collections.unmodifiableMap(classesByFile);
+    }
+
+    /**
+     * Assemble le modèle à partir des résultats par fichier (l'ordre des fichiers est conservé).
+     * @param files
+     * @return
+     */
+    public static ProjectModel of(List<FileAnalysis> files) {
+        List<ClassInfo> classes = new ArrayList<>();
+        Map<String, FileMetrics> metrics = new LinkedHashMap<>();
+        Set<String> packages = new LinkedHashSet<>();
+        Map<String, List<ClassInfo>> byFile = new LinkedHashMap<>();
+
+        for (FileAnalysis f : files) {
+            if (f == null) continue;
+            classes.addAll(f.classes);
+            metrics.put(f.path, f.metrics);
+            if (f.packageName != null) packages.add(f.packageName);
+            byFile.put(f.path, f.classes);
+        }
+        return new ProjectModel(classes, metrics, packages, byFile);
+    }
+
+    /** Identifiants entiers des classes et des méthodes (table partagée par les graphes et le couplage). */
+    public synchronized SymbolTable symbols() {
+        if (symbols == null) symbols = SymbolTable.of(classes);
+        return symbols;
+    }
+
+    /** Nombre total de lignes des fichiers du projet. */
+    public int totalLOC() {
+        int loc = 0;
+        for (FileMetrics f : files.values()) loc += f.loc;
+        return loc;
+    }
+}
@@ -0,0 +1,170 @@
+package model;
+
+import java.util.*;
+
+/**
+ * Identifiants entiers denses des classes et des méthodes d'un projet, attribués une seule fois
+ * après l'extraction. Les traitements en aval (graphes, couplage, clustering) travaillent sur ces
+ * indices ; les chaînes ne servent plus qu'à l'affichage.
+ * <ul>
+ *   <li>classe : sa position dans la liste des classes ;</li>
+ *   <li>nom qualifié : un identifiant par nom distinct (deux classes peuvent porter le même nom) ;</li>
+ *   <li>méthode : dans l'ordre des classes puis de leurs méthodes.</li>
+ * </ul>
+ * La liste des classes ne doit plus être modifiée une fois la table construite. La table appartient
+ * au modèle qui l'a construite ({@link ProjectModel#symbols()}) et est transmise aux traitements.
+ */
+public final class SymbolTable {
+
+    private static final String NO_BINDING = "NO_BINDING:";
+
+    public final List<ClassInfo> classes;
+
+    private final IdentityHashMap<ClassInfo, Integer> classIndex;
+    private final int[] nameOfClass;                  // classe -> id du nom qualifié
+    private final String[] names;                     // id du nom -> nom qualifié
+    private final Map<String, Integer> nameIds;
+    private final Map<String, Integer> nameBySimple;  // nom simple -> id du nom (la dernière classe l'emporte)
+
+    private final MethodInfo[] methods;
+    private final int[] ownerOfMethod;                // méthode -> classe
+    private final int[] firstMethod;                  // classe -> première méthode (taille classes + 1)
+    private final String[] methodKeys;
+    private final Map<String, Integer> methodByKey;   // clé -> première méthode portant cette clé
+
+    private SymbolTable(List<ClassInfo> classes) {
+        this.classes = classes;
+        int n = classes.size();
+        classIndex = new IdentityHashMap<>(n * 2);
+        nameOfClass = new int[n];
+        nameIds = new HashMap<>(n * 2);
+        nameBySimple = new HashMap<>(n * 2);
+        List<String> nameList = new ArrayList<>();
+        firstMethod = new int[n + 1];
+
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            ClassInfo ci = classes.get(i);
+            classIndex.putIfAbsent(ci, i);
+            String qn = qnOf(ci);
+            Integer id = nameIds.get(qn);
+            if (id == null) {
+                id = nameList.size();
+                nameIds.put(qn, id);
+                nameList.add(qn);
+            }
+            nameOfClass[i] = id;
+            nameBySimple.put(ci.className, id);
+            firstMethod[i] = m;
+            m += ci.methods.size();
+        }
+        firstMethod[n] = m;
+        names = nameList.toArray(new String[0]);
+
+        methods = new MethodInfo[m];
+        ownerOfMethod = new int[m];
+        methodKeys = new String[m];
+        methodByKey = new HashMap<>(m * 2);
+        for (int i = 0, k = 0; i < n; i++) {
+            String owner = names[nameOfClass[i]];
+            for (MethodInfo mi : classes.get(i).methods) {
+                methods[k] = mi;
+                ownerOfMethod[k] = i;
+                methodKeys[k] = methodKey(mi, owner);
+                methodByKey.putIfAbsent(methodKeys[k], k);
+                k++;
+            }
+        }
+    }
+
+    /**
+     * Nouvelle table des classes données.
+     * @param classes
+     * @return
+     */
+    public static SymbolTable of(List<ClassInfo> classes) {
+        return new SymbolTable(classes);
+    }
+
+    // ---- classes ----
+
+    public int classCount() {
+        return nameOfClass.length;
+    }
+
+    /** Indice de la classe (-1 si elle n'est pas dans la table). */
+    public int classIndex(ClassInfo ci) {
+        Integer i = classIndex.get(ci);
+        return (i != null) ? i : -1;
+    }
+
+    /** Identifiant du nom qualifié d'une classe. */
+    public int nameOf(int classIndex) {
+        return nameOfClass[classIndex];
+    }
+
+    public int nameCount() {
+        return names.length;
+    }
+
+    public String name(int nameId) {
+        return names[nameId];
+    }
+
+    /** Identifiant d'un nom qualifié (-1 si ce n'est pas une classe du projet). */
+    public int nameId(String qualifiedName) {
+        Integer id = nameIds.get(qualifiedName);
+        return (id != null) ? id : -1;
+    }
+
+    /** Identifiant du nom qualifié de la (dernière) classe de ce nom simple, ou -1. */
+    public int nameIdBySimpleName(String simpleName) {
+        Integer id = nameBySimple.get(simpleName);
+        return (id != null) ? id : -1;
+    }
+
+    // ---- méthodes ----
+
+    public int methodCount() {
+        return methods.length;
+    }
+
+    public MethodInfo method(int methodId) {
+        return methods[methodId];
+    }
+
+    /** Indice de la classe déclarant la méthode. */
+    public int ownerOf(int methodId) {
+        return ownerOfMethod[methodId];
+    }
+
+    /** Première méthode de la classe ; celles de la classe vont jusqu'à {@code firstMethod(i + 1)} exclu. */
+    public int firstMethod(int classIndex) {
+        return firstMethod[classIndex];
+    }
+
+    /** Clé globale de la méthode : clé de binding, sinon {@code Owner#name(params)}. */
+    public String methodKey(int methodId) {
+        return methodKeys[methodId];
+    }
+
+    /** Première méthode portant cette clé, ou -1. */
+    public int methodId(String key) {
+        Integer id = methodByKey.get(key);
+        return (id != null) ? id : -1;
+    }
+
+    // ---- helpers ----
+
+    private static String methodKey(MethodInfo mi, String ownerQN) {
+        if (mi.methodKey != null && !mi.methodKey.startsWith(NO_BINDING)) return mi.methodKey;
+        String params = (mi.parameterTypes == null) ? "" : String.join(",", mi.parameterTypes);
+        return ownerQN + "#" + mi.name + "(" + params + ")";
+    }
+
+    private static String qnOf(ClassInfo ci) {
+        if (ci.qualifiedName != null && !ci.qualifiedName.isEmpty()) return ci.qualifiedName;
+        if (ci.packageName != null && !ci.packageName.isEmpty()) return ci.packageName + "." + ci.className;
+        return ci.className;
+    }
+}
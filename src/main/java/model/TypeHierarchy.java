@@ -0,0 +1,215 @@
+package model;
+
+import java.util.*;
+
+/**
+ * Index de la hiérarchie de types d'un projet, calculé une fois après l'extraction : pour chaque type,
+ * ses super-types et ses sous-types (réflexifs et transitifs) sous forme de bitsets ({@code long[]},
+ * un bit par type). Les types sont numérotés comme les noms de {@link SymbolTable} (classes du projet),
+ * suivis des super-types externes rencontrés ({@code java.lang.Runnable}, ...), qui n'ont pas de parents
+ * connus.
+ * <p>
+ * Les noms de super-types sont pris tels qu'extraits : qualifiés avec bindings, sinon résolus par nom
+ * simple ; les arguments génériques sont ignorés.
+ * </p>
+ */
+public final class TypeHierarchy {
+
+    public final SymbolTable symbols;
+
+    private final String[] names;               // type -> nom
+    private final Map<String, Integer> ids;
+    private final boolean[] isInterface;
+    private final int[] superClass;             // type -> super-classe directe, ou -1
+    private final int[] classOfType;            // type -> classe (indice SymbolTable), -1 si externe
+    private final long[][] supertypes;
+    private final long[][] subtypes;
+
+    private TypeHierarchy(SymbolTable st) {
+        this.symbols = st;
+        int projectTypes = st.nameCount();
+        List<String> nameList = new ArrayList<>();
+        ids = new HashMap<>(projectTypes * 2);
+        for (int t = 0; t < projectTypes; t++) {
+            nameList.add(st.name(t));
+            ids.put(st.name(t), t);
+        }
+
+        // Parents directs (super-classe puis interfaces) ; la dernière classe d'un nom l'emporte
+        int[] classOf = new int[projectTypes];
+        Arrays.fill(classOf, -1);
+        for (int i = 0; i < st.classCount(); i++) classOf[st.nameOf(i)] = i;
+        List<int[]> parents = new ArrayList<>();
+        List<Integer> superList = new ArrayList<>();
+        for (int t = 0; t < projectTypes; t++) {
+            ClassInfo ci = st.classes.get(classOf[t]);
+            int sup = (ci.superClass != null) ? resolve(st, ci.superClass, nameList) : -1;
+            int[] p = new int[ci.interfaces.size() + (sup >= 0 ? 1 : 0)];
+            int k = 0;
+            if (sup >= 0) p[k++] = sup;
+            for (String itf : ci.interfaces) p[k++] = resolve(st, itf, nameList);
+            parents.add(p);
+            superList.add(sup);
+        }
+
+        int n = nameList.size();
+        names = nameList.toArray(new String[0]);
+        isInterface = new boolean[n];
+        superClass = new int[n];
+        classOfType = new int[n];
+        Arrays.fill(superClass, -1);
+        Arrays.fill(classOfType, -1);
+        for (int t = 0; t < projectTypes; t++) {
+            isInterface[t] = st.classes.get(classOf[t]).isInterface;
+            superClass[t] = superList.get(t);
+            classOfType[t] = classOf[t];
+        }
+
+        // Super-types : parcours en profondeur itératif, un type est clos après tous ses parents
+        int words = (n + 63) >>> 6;
+        supertypes = new long[n][];
+        int[] state = new int[n];               // 0 = non vu, 1 = en cours, 2 = clos
+        int[] stack = new int[n];
+        int[] cursor = new int[n];
+        for (int root = 0; root < n; root++) {
+            if (state[root] != 0) continue;
+            int sp = 0;
+            stack[sp] = root;
+            cursor[sp++] = 0;
+            state[root] = 1;
+            while (sp > 0) {
+                int t = stack[sp - 1];
+                int[] p = (t < projectTypes) ? parents.get(t) : new int[0];
+                if (cursor[sp - 1] < p.length) {
+                    int u = p[cursor[sp - 1]++];
+                    if (state[u] == 0) {        // un cycle (code invalide) est simplement coupé
+                        state[u] = 1;
+                        stack[sp] = u;
+                        cursor[sp++] = 0;
+                    }
+                    continue;
+                }
+                long[] bits = new long[words];
+                bits[t >>> 6] |= 1L << t;
+                for (int u : p) {
+                    if (supertypes[u] == null) continue;
+                    for (int w = 0; w < words; w++) bits[w] |= supertypes[u][w];
+                }
+                supertypes[t] = bits;
+                state[t] = 2;
+                sp--;
+            }
+        }
+
+        // Sous-types : transposée des super-types
+        subtypes = new long[n][words];
+        for (int t = 0; t < n; t++) {
+            long[] sup = supertypes[t];
+            for (int w = 0; w < words; w++) {
+                long word = sup[w];
+                while (word != 0) {
+                    int s = (w << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    subtypes[s][t >>> 6] |= 1L << t;
+                }
+            }
+        }
+    }
+
+    /**
+     * Index des classes d'une table de symboles.
+     * @param symbols
+     * @return
+     */
+    public static TypeHierarchy of(SymbolTable symbols) {
+        return new TypeHierarchy(symbols);
+    }
+
+    public int typeCount() {
+        return names.length;
+    }
+
+    public String name(int type) {
+        return names[type];
+    }
+
+    /** Numéro du type (nom qualifié, arguments génériques ignorés), ou -1. */
+    public int typeId(String name) {
+        if (name == null) return -1;
+        Integer id = ids.get(erase(name));
+        return (id != null) ? id : -1;
+    }
+
+    /** Le type est une classe du projet (et non un super-type externe). */
+    public boolean isProjectType(int type) {
+        return classOfType[type] >= 0;
+    }
+
+    /** Indice {@link SymbolTable} de la classe du type, ou -1 pour un type externe. */
+    public int classOf(int type) {
+        return classOfType[type];
+    }
+
+    public boolean isInterface(int type) {
+        return isInterface[type];
+    }
+
+    /** Super-classe directe, ou -1 (externe non résolue, ou interface). */
+    public int superClass(int type) {
+        return superClass[type];
+    }
+
+    /** {@code sub} est {@code sup} ou l'un de ses sous-types. */
+    public boolean isSubtype(int sub, int sup) {
+        return (supertypes[sub][sup >>> 6] & (1L << sup)) != 0;
+    }
+
+    /** Super-types (type compris), bitset en lecture seule. */
+    public long[] supertypes(int type) {
+        return supertypes[type];
+    }
+
+    /** Sous-types (type compris), bitset en lecture seule. */
+    public long[] subtypes(int type) {
+        return subtypes[type];
+    }
+
+    /** Sous-types (type compris), par numéro croissant. */
+    public int[] subtypeIds(int type) {
+        long[] bits = subtypes[type];
+        int count = 0;
+        for (long w : bits) count += Long.bitCount(w);
+        int[] out = new int[count];
+        int k = 0;
+        for (int w = 0; w < bits.length; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                out[k++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return out;
+    }
+
+    // ---- helpers ----
+
+    /** Numéro d'un super-type : nom qualifié, sinon nom simple d'une classe du projet, sinon nouveau type externe. */
+    private int resolve(SymbolTable st, String name, List<String> nameList) {
+        String qn = erase(name);
+        Integer id = ids.get(qn);
+        if (id != null) return id;
+        if (qn.indexOf('.') < 0) {
+            int bySimple = st.nameIdBySimpleName(qn);
+            if (bySimple >= 0) return bySimple;
+        }
+        id = nameList.size();
+        ids.put(qn, id);
+        nameList.add(qn);
+        return id;
+    }
+
+    private static String erase(String type) {
+        int lt = type.indexOf('<');
+        return (lt >= 0 ? type.substring(0, lt) : type).trim();
+    }
+}
@@ -0,0 +1,60 @@
+package report;
+
+import metrics.CallGraphBuilder;
+import metrics.CouplingGraphBuilder;
+import metrics.ModuleIdentifier;
+import metrics.Reachability;
+import metrics.StronglyConnected;
+import model.ProjectModel;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Résultats d'une exécution du pipeline (modèle, graphe d'appels, couplage, modules),
+ * tels qu'ils sont exportés par {@link ReportWriter}.
+ */
+public final class AnalysisReport {
+    public final ProjectModel model;
+    public final CallGraphBuilder.DiGraph<String> methodGraph;
+    public final CouplingGraphBuilder.WeightedGraph<String> couplingGraph;     // null si non calculé
+    public final ModuleIdentifier.Result modules;                               // null si non calculé
+    public final Reachability.DeadCode deadCode;                                // null si non calculé
+    public final Map<String, StronglyConnected> components;                     // niveau -> composantes, null si non calculé
+    public final Map<String, Long> timingsMs;                                   // phase -> durée (ms)
+
+    public AnalysisReport(ProjectModel model,
+                          CallGraphBuilder.DiGraph<String> methodGraph,
+                          CouplingGraphBuilder.WeightedGraph<String> couplingGraph,
+                          ModuleIdentifier.Result modules,
+                          Map<String, Long> timingsMs) {
+        this(model, methodGraph, couplingGraph, modules, null, timingsMs);
+    }
+
+    public AnalysisReport(ProjectModel model,
+                          CallGraphBuilder.DiGraph<String> methodGraph,
+                          CouplingGraphBuilder.WeightedGraph<String> couplingGraph,
+                          ModuleIdentifier.Result modules,
+                          Reachability.DeadCode deadCode,
+                          Map<String, Long> timingsMs) {
+        this(model, methodGraph, couplingGraph, modules, deadCode, null, timingsMs);
+    }
+
+    public AnalysisReport(ProjectModel model,
+                          CallGraphBuilder.DiGraph<String> methodGraph,
+                          CouplingGraphBuilder.WeightedGraph<String> couplingGraph,
+                          ModuleIdentifier.Result modules,
+                          Reachability.DeadCode deadCode,
+                          Map<String, StronglyConnected> components,
+                          Map<String, Long> timingsMs) {
+        this.model = Objects.requireNonNull(model, "model");
+        this.methodGraph = Objects.requireNonNull(methodGraph, "methodGraph");
+        this.couplingGraph = couplingGraph;
+        this.modules = modules;
+        this.deadCode = deadCode;
+        this.components = (components != null) ? Collections.unmodifiableMap(new LinkedHashMap<>(components)) : null;
+        this.timingsMs = Collections.unmodifiableMap(new LinkedHashMap<>(timingsMs));
+    }
+}
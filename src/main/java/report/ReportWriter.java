@@ -0,0 +1,298 @@
+package report;
+
+import metrics.StronglyConnected;
+import model.ClassInfo;
+import model.MethodInfo;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Export d'un {@link AnalysisReport} en JSON (un document) ou en CSV (un fichier par table).
+ * Écriture à la main pour ne dépendre d'aucune bibliothèque supplémentaire.
+ */
+public final class ReportWriter {
+
+    private ReportWriter() {}
+
+    // =============== JSON ===============
+
+    /**
+     * Écrit le rapport complet en JSON.
+     * @param r
+     * @param out
+     * @throws IOException
+     */
+    public static void writeJson(AnalysisReport r, Writer out) throws IOException {
+        int methods = 0;
+        for (ClassInfo ci : r.model.classes) methods += ci.methods.size();
+        int loc = r.model.totalLOC();
+
+        out.write("{\n");
+        out.write("  \"summary\": {");
+        out.write("\"files\": " + r.model.files.size());
+        out.write(", \"classes\": " + r.model.classes.size());
+        out.write(", \"methods\": " + methods);
+        out.write(", \"packages\": " + r.model.packages.size());
+        out.write(", \"loc\": " + loc);
+        out.write(", \"callGraphNodes\": " + r.methodGraph.nodes().size());
+        out.write(", \"callGraphEdges\": " + countEdges(r.methodGraph.edges()));
+        out.write("},\n");
+
+        out.write("  \"timingsMs\": {");
+        writeEntries(out, r.timingsMs.entrySet(), e -> str(e.getKey()) + ": " + e.getValue());
+        out.write("},\n");
+
+        out.write("  \"classes\": [");
+        List<String> rows = new ArrayList<>();
+        for (Map.Entry<String, List<ClassInfo>> e : r.model.classesByFile.entrySet()) {
+            for (ClassInfo ci : e.getValue()) {
+                rows.add("{\"name\": " + str(qnOf(ci))
+                        + ", \"package\": " + str(ci.packageName)
+                        + ", \"file\": " + str(e.getKey())
+                        + ", \"interface\": " + ci.isInterface
+                        + ", \"superClass\": " + str(ci.superClass)
+                        + ", \"methods\": " + ci.methods.size()
+                        + ", \"fields\": " + ci.fields.size()
+                        + ", \"loc\": " + classLOC(ci) + "}");
+            }
+        }
+        writeRows(out, rows);
+        out.write("],\n");
+
+        out.write("  \"callGraph\": [");
+        rows.clear();
+        for (Map.Entry<String, Set<String>> e : r.methodGraph.edges().entrySet()) {
+            for (String to : e.getValue()) rows.add("[" + str(e.getKey()) + ", " + str(to) + "]");
+        }
+        writeRows(out, rows);
+        out.write("],\n");
+
+        out.write("  \"coupling\": ");
+        if (r.couplingGraph == null) {
+            out.write("null");
+        } else {
+            out.write("[");
+            rows.clear();
+            for (String[] p : couplingPairs(r)) {
+                rows.add("{\"a\": " + str(p[0]) + ", \"b\": " + str(p[1]) + ", \"weight\": " + p[2] + "}");
+            }
+            writeRows(out, rows);
+            out.write("]");
+        }
+        out.write(",\n");
+
+        out.write("  \"modules\": ");
+        if (r.modules == null) {
+            out.write("null");
+        } else {
+            out.write("{\"feasible\": " + r.modules.feasible + ", \"list\": [");
+            rows.clear();
+            for (int i = 0; i < r.modules.modules.size(); i++) {
+                String members = membersOf(r.modules.modules.get(i)).stream()
+                        .map(ReportWriter::str)
+                        .collect(Collectors.joining(", "));
+                rows.add("{\"id\": " + (i + 1)
+                        + ", \"avgCoupling\": " + r.modules.avgCouplings.get(i)
+                        + ", \"classes\": [" + members + "]}");
+            }
+            writeRows(out, rows);
+            out.write("]}");
+        }
+        out.write(",\n");
+
+        out.write("  \"deadCode\": ");
+        if (r.deadCode == null) {
+            out.write("null");
+        } else {
+            out.write("{\"projectMethods\": " + r.deadCode.projectMethods
+                    + ", \"entryPoints\": " + r.deadCode.entryPoints.size() + ", \"unreachable\": [");
+            rows.clear();
+            for (String m : r.deadCode.unreachable) rows.add(str(m));
+            writeRows(out, rows);
+            out.write("]}");
+        }
+        out.write(",\n");
+
+        out.write("  \"cycles\": ");
+        if (r.components == null) {
+            out.write("null");
+        } else {
+            out.write("{");
+            boolean first = true;
+            for (Map.Entry<String, StronglyConnected> e : r.components.entrySet()) {
+                StronglyConnected scc = e.getValue();
+                out.write((first ? "\n    " : ",\n    ") + str(e.getKey()) + ": {\"nodes\": " + scc.graph().nodeCount()
+                        + ", \"components\": " + scc.count() + ", \"dagEdges\": " + scc.dagEdgeCount() + ", \"cyclic\": [");
+                List<Integer> cyclic = scc.cyclic();
+                for (int i = 0; i < cyclic.size(); i++) {
+                    String members = scc.labels(cyclic.get(i)).stream()
+                            .map(ReportWriter::str)
+                            .collect(Collectors.joining(", "));
+                    out.write((i == 0 ? "\n      " : ",\n      ") + "{\"size\": " + scc.size(cyclic.get(i))
+                            + ", \"members\": [" + members + "]}");
+                }
+                out.write(cyclic.isEmpty() ? "]}" : "\n    ]}");
+                first = false;
+            }
+            out.write(first ? "}" : "\n  }");
+        }
+        out.write("\n}\n");
+    }
+
+    // =============== CSV ===============
+
+    /**
+     * Écrit une table CSV par résultat dans {@code dir} : classes, callgraph, coupling, modules, deadcode, cycles.
+     * @param r
+     * @param dir
+     * @throws IOException
+     */
+    public static void writeCsv(AnalysisReport r, Path dir) throws IOException {
+        Files.createDirectories(dir);
+
+        try (Writer w = Files.newBufferedWriter(dir.resolve("classes.csv"), StandardCharsets.UTF_8)) {
+            w.write("class,package,file,interface,methods,fields,loc\n");
+            for (Map.Entry<String, List<ClassInfo>> e : r.model.classesByFile.entrySet()) {
+                for (ClassInfo ci : e.getValue()) {
+                    w.write(csv(qnOf(ci)) + "," + csv(ci.packageName) + "," + csv(e.getKey()) + ","
+                            + ci.isInterface + "," + ci.methods.size() + "," + ci.fields.size() + ","
+                            + classLOC(ci) + "\n");
+                }
+            }
+        }
+
+        try (Writer w = Files.newBufferedWriter(dir.resolve("callgraph.csv"), StandardCharsets.UTF_8)) {
+            w.write("from,to\n");
+            for (Map.Entry<String, Set<String>> e : r.methodGraph.edges().entrySet()) {
+                for (String to : e.getValue()) w.write(csv(e.getKey()) + "," + csv(to) + "\n");
+            }
+        }
+
+        if (r.couplingGraph != null) {
+            try (Writer w = Files.newBufferedWriter(dir.resolve("coupling.csv"), StandardCharsets.UTF_8)) {
+                w.write("a,b,weight\n");
+                for (String[] p : couplingPairs(r)) w.write(csv(p[0]) + "," + csv(p[1]) + "," + p[2] + "\n");
+            }
+        }
+
+        if (r.modules != null) {
+            try (Writer w = Files.newBufferedWriter(dir.resolve("modules.csv"), StandardCharsets.UTF_8)) {
+                w.write("module,avgCoupling,class\n");
+                for (int i = 0; i < r.modules.modules.size(); i++) {
+                    for (String qn : membersOf(r.modules.modules.get(i))) {
+                        w.write((i + 1) + "," + r.modules.avgCouplings.get(i) + "," + csv(qn) + "\n");
+                    }
+                }
+            }
+        }
+
+        if (r.deadCode != null) {
+            try (Writer w = Files.newBufferedWriter(dir.resolve("deadcode.csv"), StandardCharsets.UTF_8)) {
+                w.write("method\n");
+                for (String m : r.deadCode.unreachable) w.write(csv(m) + "\n");
+            }
+        }
+
+        if (r.components != null) {
+            try (Writer w = Files.newBufferedWriter(dir.resolve("cycles.csv"), StandardCharsets.UTF_8)) {
+                w.write("level,cycle,size,member\n");
+                for (Map.Entry<String, StronglyConnected> e : r.components.entrySet()) {
+                    StronglyConnected scc = e.getValue();
+                    List<Integer> cyclic = scc.cyclic();
+                    for (int i = 0; i < cyclic.size(); i++) {
+                        for (String m : scc.labels(cyclic.get(i))) {
+                            w.write(csv(e.getKey()) + "," + (i + 1) + "," + scc.size(cyclic.get(i)) + "," + csv(m) + "\n");
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // =============== Helpers ===============
+
+    /** Paires (a, b, poids) du graphe de couplage, chaque paire une seule fois. */
+    private static List<String[]> couplingPairs(AnalysisReport r) {
+        List<String[]> pairs = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Double>> e : r.couplingGraph.edges().entrySet()) {
+            for (Map.Entry<String, Double> t : e.getValue().entrySet()) {
+                if (e.getKey().compareTo(t.getKey()) < 0) {
+                    pairs.add(new String[]{e.getKey(), t.getKey(), String.valueOf(t.getValue())});
+                }
+            }
+        }
+        return pairs;
+    }
+
+    private static List<String> membersOf(Set<ClassInfo> module) {
+        return module.stream().map(ReportWriter::qnOf).sorted().collect(Collectors.toList());
+    }
+
+    private static int classLOC(ClassInfo ci) {
+        int loc = 0;
+        for (MethodInfo mi : ci.methods) loc += mi.loc;
+        return loc;
+    }
+
+    private static int countEdges(Map<String, Set<String>> edges) {
+        int c = 0;
+        for (Set<String> s : edges.values()) c += s.size();
+        return c;
+    }
+
+    private interface Row<T> { String of(T t); }
+
+    private static <T> void writeEntries(Writer out, Collection<T> items, Row<T> row) throws IOException {
+        boolean first = true;
+        for (T t : items) {
+            if (!first) out.write(", ");
+            out.write(row.of(t));
+            first = false;
+        }
+    }
+
+    private static void writeRows(Writer out, List<String> rows) throws IOException {
+        for (int i = 0; i < rows.size(); i++) {
+            out.write(i == 0 ? "\n    " : ",\n    ");
+            out.write(rows.get(i));
+        }
+        if (!rows.isEmpty()) out.write("\n  ");
+    }
+
+    private static String str(String s) {
+        if (s == null) return "null";
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static String csv(String s) {
+        if (s == null) return "";
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0) return s;
+        return "\"" + s.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String qnOf(ClassInfo ci) {
+        if (ci.qualifiedName != null && !ci.qualifiedName.isEmpty()) return ci.qualifiedName;
+        if (ci.packageName != null && !ci.packageName.isEmpty()) return ci.packageName + "." + ci.className;
+        return ci.className;
+    }
+}
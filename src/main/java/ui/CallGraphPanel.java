@@ -2,6 +2,10 @@ package ui;
 
 import metrics.CallGraphBuilder;
 import metrics.CallGraphBuilder.DiGraph;
+import metrics.CallGraphQuery;
+import metrics.CsrGraph;
+import metrics.MethodNode;
+import metrics.Reachability;
 import model.ClassInfo;
 
 import javax.swing.*;
@@ -20,23 +24,45 @@ public class CallGraphPanel extends JPanel {
 
     public enum Mode { CLASSES, METHODES }
 
-    private final List<ClassInfo> classes;
+    private List<ClassInfo> classes;
 
     // UI
     private final JComboBox<Mode> modeCombo = new JComboBox<>(Mode.values());
     private final JCheckBox includeExternal = new JCheckBox("Inclure externes", true);
+    private final JComboBox<CallGraphBuilder.Dispatch> dispatchCombo = new JComboBox<>(CallGraphBuilder.Dispatch.values());
     private final JButton buildBtn = new JButton("Construire");
+    private final JCheckBox deadCodeBox = new JCheckBox("Code mort (main + API publique)");
     private final JLabel status = new JLabel(" ");
 
+    // Requêtes (analyse d'impact)
+    private final JTextField queryField = new JTextField(24);
+    private final JSpinner depthSpinner = new JSpinner(new SpinnerNumberModel(1, 0, 99, 1));
+    private final JButton callersBtn = new JButton("Appelants");
+    private final JButton reachBtn = new JButton("Atteignables");
+    private final JTextField targetField = new JTextField(24);
+    private final JButton pathBtn = new JButton("Chemin");
+    private final JButton allBtn = new JButton("Toutes les arêtes");
+
     private final JTable edgesTable = new JTable();
     private final GraphCanvas canvas = new GraphCanvas();
 
     // Données courantes
     private DiGraph<String> graph = new DiGraph<String>();
+    private DiGraph<String> methodGraph;    // graphe méthodes entretenu par l'appelant (ou null)
 
     public CallGraphPanel(List<ClassInfo> classes) {
+        this(classes, null);
+    }
+
+    /**
+     * @param classes
+     * @param methodGraph graphe méthodes (externes inclus, appels statiques) déjà construit, réutilisé
+     *                    au lieu d'être reconstruit ; null pour toujours reconstruire
+     */
+    public CallGraphPanel(List<ClassInfo> classes, DiGraph<String> methodGraph) {
         super(new BorderLayout(8,8));
         this.classes = classes;
+        this.methodGraph = methodGraph;
         setBorder(BorderFactory.createEmptyBorder(8,8,8,8));
 
         // Toolbar
@@ -47,38 +73,150 @@ public class CallGraphPanel extends JPanel {
         tb.add(Box.createHorizontalStrut(8));
         tb.add(includeExternal);
         tb.add(Box.createHorizontalStrut(8));
+        tb.add(new JLabel("Appels virtuels : "));
+        tb.add(dispatchCombo);
+        tb.add(Box.createHorizontalStrut(8));
         tb.add(buildBtn);
+        tb.add(Box.createHorizontalStrut(8));
+        tb.add(deadCodeBox);
         tb.add(Box.createHorizontalStrut(16));
         tb.add(status);
 
+        // Barre de requêtes : profondeur 0 = sans limite
+        JToolBar qb = new JToolBar();
+        qb.setFloatable(false);
+        qb.add(new JLabel("Noeud : "));
+        qb.add(queryField);
+        qb.add(Box.createHorizontalStrut(8));
+        qb.add(new JLabel("Profondeur : "));
+        qb.add(depthSpinner);
+        qb.add(Box.createHorizontalStrut(4));
+        qb.add(callersBtn);
+        qb.add(reachBtn);
+        qb.add(Box.createHorizontalStrut(16));
+        qb.add(new JLabel("Vers : "));
+        qb.add(targetField);
+        qb.add(Box.createHorizontalStrut(4));
+        qb.add(pathBtn);
+        qb.add(Box.createHorizontalStrut(16));
+        qb.add(allBtn);
+
+        JPanel bars = new JPanel(new GridLayout(2, 1));
+        bars.add(tb);
+        bars.add(qb);
+
         // Split : graph (gauche) / table (droite)
         JSplitPane split = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT,
                 wrap(canvas), new JScrollPane(edgesTable));
         split.setResizeWeight(0.6);
 
-        add(tb, BorderLayout.NORTH);
+        add(bars, BorderLayout.NORTH);
         add(split, BorderLayout.CENTER);
 
         // Listeners
         buildBtn.addActionListener(new ActionListener() {
             @Override public void actionPerformed(ActionEvent e) { rebuildGraph(); }
         });
+        ActionListener callers = new ActionListener() {
+            @Override public void actionPerformed(ActionEvent e) { showCallers(); }
+        };
+        callersBtn.addActionListener(callers);
+        queryField.addActionListener(callers);
+        reachBtn.addActionListener(new ActionListener() {
+            @Override public void actionPerformed(ActionEvent e) { showReachable(); }
+        });
+        deadCodeBox.addActionListener(new ActionListener() {
+            @Override public void actionPerformed(ActionEvent e) { showDeadCode(); }
+        });
+        ActionListener path = new ActionListener() {
+            @Override public void actionPerformed(ActionEvent e) { showPath(); }
+        };
+        pathBtn.addActionListener(path);
+        targetField.addActionListener(path);
+        allBtn.addActionListener(new ActionListener() {
+            @Override public void actionPerformed(ActionEvent e) { fillTable(); }
+        });
 
         // Construction initiale
         rebuildGraph();
     }
 
+    /**
+     * Remplace les classes affichées (mode watch) et reconstruit le graphe avec les options courantes.
+     * À appeler sur l'EDT.
+     * @param classes
+     */
+    public void setClasses(List<ClassInfo> classes) {
+        setClasses(classes, null);
+    }
+
+    /**
+     * Remplace les classes et le graphe méthodes correspondant (mode watch, graphe entretenu).
+     * À appeler sur l'EDT.
+     * @param classes
+     * @param methodGraph
+     */
+    public void setClasses(List<ClassInfo> classes, DiGraph<String> methodGraph) {
+        this.classes = classes;
+        this.methodGraph = methodGraph;
+        rebuildGraph();
+    }
+
     private void rebuildGraph() {
         Mode mode = (Mode) modeCombo.getSelectedItem();
         boolean ext = includeExternal.isSelected();
-        if (mode == Mode.METHODES) {
-            this.graph = CallGraphBuilder.buildMethodGraph(classes, ext);
+        CallGraphBuilder.Dispatch dispatch = (CallGraphBuilder.Dispatch) dispatchCombo.getSelectedItem();
+        if (mode == Mode.METHODES && ext && dispatch == CallGraphBuilder.Dispatch.STATIC && methodGraph != null) {
+            this.graph = methodGraph;
+        } else if (mode == Mode.METHODES) {
+            this.graph = CallGraphBuilder.buildMethodGraph(classes, ext, dispatch);
         } else {
             this.graph = CallGraphBuilder.buildClassGraph(classes, ext);
         }
         fillTable();
         canvas.setGraph(graph);
         status.setText("Noeuds: " + graph.nodes().size() + "  |  Arêtes: " + countEdges(graph));
+        if (deadCodeBox.isSelected()) showDeadCode();
+    }
+
+    /** Mode surlignage : méthodes non atteignables depuis les main et l'API publique. */
+    private void showDeadCode() {
+        if (!deadCodeBox.isSelected()) {
+            canvas.setHighlight(Collections.<String>emptySet());
+            return;
+        }
+        if (modeCombo.getSelectedItem() != Mode.METHODES) {
+            canvas.setHighlight(Collections.<String>emptySet());
+            status.setText("Code mort : disponible au niveau METHODES");
+            return;
+        }
+        CsrGraph g = csr();
+        Reachability.DeadCode dead = Reachability.deadCode(classes, g, true);
+        canvas.setHighlight(new HashSet<>(dead.unreachable));
+
+        DefaultTableModel m = readOnlyModel("Méthode non atteinte", "Classe");
+        for (String s : dead.unreachable) m.addRow(new Object[]{s, ownerOf(g, s)});
+        showModel(m);
+        status.setText(dead.unreachable.size() + " / " + dead.projectMethods + " méthode(s) non atteinte(s) depuis "
+                + dead.entryPoints.size() + " point(s) d'entrée");
+    }
+
+    /** Tout ce que le noeud saisi peut atteindre (profondeur non limitée), surligné. */
+    private void showReachable() {
+        CsrGraph g = csr();
+        int v = lookup(g, queryField.getText());
+        if (v < 0) {
+            status.setText("Noeud introuvable : " + queryField.getText().trim());
+            return;
+        }
+        int[] reached = Reachability.toArray(new Reachability(g).reachableFrom(v));
+        List<String> labels = CallGraphQuery.labels(g, reached);
+        canvas.setHighlight(new HashSet<>(labels));
+
+        DefaultTableModel m = readOnlyModel("Atteint", "Classe");
+        for (String s : labels) m.addRow(new Object[]{s, ownerOf(g, s)});
+        showModel(m);
+        status.setText(labels.size() + " noeud(s) atteignable(s) depuis " + g.label(v));
     }
 
     private void fillTable() {
@@ -96,6 +234,86 @@ public class CallGraphPanel extends JPanel {
         prefWidth(edgesTable, 1, 420);
     }
 
+    /** Appelants (directs ou transitifs jusqu'à la profondeur choisie) du noeud saisi. */
+    private void showCallers() {
+        CsrGraph g = csr();
+        int v = lookup(g, queryField.getText());
+        if (v < 0) {
+            status.setText("Noeud introuvable : " + queryField.getText().trim());
+            return;
+        }
+        int depth = (Integer) depthSpinner.getValue();
+        CallGraphQuery.Hits hits = CallGraphQuery.callersUpTo(g, v, depth);
+
+        DefaultTableModel m = readOnlyModel("Appelant", "Profondeur");
+        for (int k = 0; k < hits.size(); k++) m.addRow(new Object[]{g.label(hits.nodes[k]), hits.depths[k]});
+        showModel(m);
+        status.setText(hits.size() + " appelant(s) de " + g.label(v)
+                + (depth > 0 ? " (profondeur <= " + depth + ")" : ""));
+    }
+
+    /** Plus court chemin d'appel du noeud saisi vers le noeud cible. */
+    private void showPath() {
+        CsrGraph g = csr();
+        int from = lookup(g, queryField.getText());
+        int to = lookup(g, targetField.getText());
+        if (from < 0 || to < 0) {
+            status.setText("Noeud introuvable : " + (from < 0 ? queryField.getText() : targetField.getText()).trim());
+            return;
+        }
+        int[] path = CallGraphQuery.shortestPath(g, from, to);
+
+        DefaultTableModel m = readOnlyModel("Etape", "Noeud");
+        for (int k = 0; k < path.length; k++) m.addRow(new Object[]{k, g.label(path[k])});
+        showModel(m);
+        status.setText(path.length == 0
+                ? "Aucun chemin de " + g.label(from) + " vers " + g.label(to)
+                : "Chemin de " + (path.length - 1) + " appel(s)");
+    }
+
+    /**
+     * Classe d'un noeud : lue dans sa description (graphe de méthodes), sinon déduite du libellé
+     * "Owner.m(...)" (le libellé lui-même au niveau classes).
+     */
+    private static String ownerOf(CsrGraph g, String label) {
+        int v = g.nodeId(label);
+        MethodNode node = (v >= 0) ? g.node(v) : null;
+        if (node != null) return node.external ? "[EXT] " + node.owner : node.owner;
+        int paren = label.indexOf('(');
+        int dot = (paren > 0) ? label.lastIndexOf('.', paren) : -1;
+        return (dot > 0) ? label.substring(0, dot) : label;
+    }
+
+    private CsrGraph csr() {
+        return CsrGraph.of(graph);
+    }
+
+    /** Libellé exact, sinon premier noeud dont le libellé contient le texte (sans casse). */
+    private static int lookup(CsrGraph g, String text) {
+        String q = text.trim();
+        if (q.isEmpty()) return -1;
+        int v = g.nodeId(q);
+        if (v >= 0) return v;
+        String lq = q.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < g.nodeCount(); i++) {
+            if (g.label(i).toLowerCase(Locale.ROOT).contains(lq)) return i;
+        }
+        return -1;
+    }
+
+    private static DefaultTableModel readOnlyModel(String c0, String c1) {
+        return new DefaultTableModel(new Object[]{c0, c1}, 0) {
+            @Override public boolean isCellEditable(int r, int c) { return false; }
+        };
+    }
+
+    private void showModel(DefaultTableModel m) {
+        edgesTable.setModel(m);
+        edgesTable.setAutoCreateRowSorter(true);
+        prefWidth(edgesTable, 0, 420);
+        prefWidth(edgesTable, 1, 420);
+    }
+
     private int countEdges(DiGraph<String> g) {
         int c = 0;
         for (Set<String> s : g.edges().values()) c += s.size();
@@ -127,6 +345,7 @@ public class CallGraphPanel extends JPanel {
 
     private static class GraphCanvas extends JComponent {
         private DiGraph<String> graph = new DiGraph<String>();
+        private Set<String> highlight = Collections.emptySet();
         // layout
         private final Map<String, Point2D> pos = new LinkedHashMap<String, Point2D>();
         private double zoom = 1.0;
@@ -174,6 +393,11 @@ public class CallGraphPanel extends JPanel {
             repaint();
         }
 
+        public void setHighlight(Set<String> nodes) {
+            this.highlight = nodes;
+            repaint();
+        }
+
         private void computeCircularLayout() {
             pos.clear();
             int n = graph.nodes().size();
@@ -231,9 +455,10 @@ public class CallGraphPanel extends JPanel {
                 int y = (int) Math.round(p.y - th / 2.0);
 
                 // box
-                g.setColor(new Color(0xF2F6FF));
+                boolean hl = highlight.contains(n);
+                g.setColor(hl ? new Color(0xFFE0E0) : new Color(0xF2F6FF));
                 g.fillRoundRect(x, y, tw, th, 14, 14);
-                g.setColor(new Color(0x2F5DA8));
+                g.setColor(hl ? new Color(0xC0392B) : new Color(0x2F5DA8));
                 g.drawRoundRect(x, y, tw, th, 14, 14);
 
                 // text
@@ -1,5 +1,6 @@
 package ui;
 
+import metrics.CouplingService;
 import model.ClassInfo;
 
 import javax.swing.*;
@@ -17,12 +18,33 @@ public class CouplingPanel extends JPanel {
     private final JLabel resultLabel = new JLabel("—");
 
     // fourni par toi : (classA, classB) -> valeur du couplage
-    private final ToDoubleBiFunction<String, String> couplingFunction;
+    private ToDoubleBiFunction<String, String> couplingFunction;
+    // classes les plus couplées à A (seulement avec un service de couplage)
+    private CouplingService service;
+    private final DefaultListModel<String> topModel = new DefaultListModel<>();
+    private static final int TOP_K = 10;
 
     public CouplingPanel(List<ClassInfo> classes,
                          ToDoubleBiFunction<String, String> couplingFunction) {
+        this(classes, couplingFunction, null);
+    }
+
+    /**
+     * Panneau lisant le couplage dans le cache du service (pas de recalcul à chaque sélection),
+     * avec les classes les plus couplées à A.
+     * @param classes
+     * @param service
+     */
+    public CouplingPanel(List<ClassInfo> classes, CouplingService service) {
+        this(classes, Objects.requireNonNull(service, "service")::coupling, service);
+    }
+
+    private CouplingPanel(List<ClassInfo> classes,
+                          ToDoubleBiFunction<String, String> couplingFunction,
+                          CouplingService service) {
         super(new BorderLayout(8, 8));
         this.couplingFunction = Objects.requireNonNull(couplingFunction, "couplingFunction");
+        this.service = service;
 
         setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
         buildUI();
@@ -90,11 +112,45 @@ public class CouplingPanel extends JPanel {
         add(form, BorderLayout.CENTER);
         add(south, BorderLayout.SOUTH);
 
+        if (service != null) {
+            JList<String> top = new JList<>(topModel);
+            JScrollPane sp = new JScrollPane(top);
+            sp.setBorder(BorderFactory.createTitledBorder("Plus couplées à A"));
+            sp.setPreferredSize(new Dimension(300, 160));
+            add(sp, BorderLayout.EAST);
+        }
+
         // tailles
         comboA.setPrototypeDisplayValue("com.example.very.long.package.AndAQuiteLongClassName");
         comboB.setPrototypeDisplayValue("com.example.very.long.package.AndAQuiteLongClassName");
     }
 
+    /**
+     * Recharge la liste des classes en conservant la sélection courante si elle existe encore.
+     * À appeler sur l'EDT.
+     * @param classes
+     */
+    public void setClasses(List<ClassInfo> classes) {
+        Object a = comboA.getSelectedItem();
+        Object b = comboB.getSelectedItem();
+        loadClasses(classes);
+        if (a != null && ((DefaultComboBoxModel<String>) comboA.getModel()).getIndexOf(a) >= 0) comboA.setSelectedItem(a);
+        if (b != null && ((DefaultComboBoxModel<String>) comboB.getModel()).getIndexOf(b) >= 0) comboB.setSelectedItem(b);
+        computeAndShow();
+    }
+
+    /**
+     * Recharge la liste des classes avec le service de couplage de ce nouveau modèle, les deux
+     * ensemble. À appeler sur l'EDT.
+     * @param classes
+     * @param service
+     */
+    public void setClasses(List<ClassInfo> classes, CouplingService service) {
+        this.service = Objects.requireNonNull(service, "service");
+        this.couplingFunction = service::coupling;
+        setClasses(classes);
+    }
+
     private void loadClasses(List<ClassInfo> classes) {
         java.util.List<String> fqn = new ArrayList<>();
         for (ClassInfo ci : classes) {
@@ -128,6 +184,7 @@ public class CouplingPanel extends JPanel {
     private void computeAndShow() {
         String a = (String) comboA.getSelectedItem();
         String b = (String) comboB.getSelectedItem();
+        showTop(a);
         if (a == null || b == null) {
             resultLabel.setText("—");
             return;
@@ -144,6 +201,16 @@ public class CouplingPanel extends JPanel {
         }
     }
 
+    private void showTop(String a) {
+        if (service == null) return;
+        topModel.clear();
+        ClassInfo ca = (a != null) ? service.classNamed(a) : null;
+        if (ca == null) return;
+        for (CouplingService.Entry e : service.top(ca, TOP_K)) {
+            topModel.addElement(String.format(java.util.Locale.ROOT, "%s  %.6f", e.other.className, e.coupling));
+        }
+    }
+
     private static String qnOf(ClassInfo ci) {
         if (ci.qualifiedName != null && !ci.qualifiedName.isEmpty()) return ci.qualifiedName;
         if (ci.packageName != null && !ci.packageName.isEmpty()) return ci.packageName + "." + ci.className;
@@ -1,10 +1,16 @@
 package ui;
 
+import instrumentation.Instrumentation;
 import metrics.CallGraphBuilder;
+import metrics.CouplingGraphBuilder;
+import metrics.CouplingService;
 import metrics.HierarchicalClustering;
+import metrics.IncrementalCallGraph;
 import metrics.MetricsCalculator;
 import model.ClassInfo;
 import model.MethodInfo;
+import model.ProjectModel;
+import model.SymbolTable;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
@@ -17,8 +23,18 @@ import java.util.stream.Collectors;
 
 public class MetricsUI extends JFrame {
 
-    private final List<ClassInfo> classes;
+    private volatile List<ClassInfo> classes;
+    private final Instrumentation instrumentation; // mesure des graphes dérivés (ou null)
+    private final IncrementalCallGraph callGraph = new IncrementalCallGraph(/* includeExternal */ true);
+    private Derived derived;                        // dernier calcul (réutilisé si le graphe n'a pas changé)
     private MetricsCalculator.Metrics result;
+
+    // Onglets graphes (rafraîchis en place par refresh)
+    private final CallGraphPanel callGraphPanel;
+    private final CouplingPanel couplingPanel;
+    private final CouplingWeightedGraphPanel couplingWeightedGraphPanel = new CouplingWeightedGraphPanel();
+    private final DendrogramPanel dendrogramPanel = new DendrogramPanel();
+    private final ModulesPanel modulesPanel;
     private int thresholdX;
 
     // Onglet "Projet"
@@ -49,7 +65,39 @@ public class MetricsUI extends JFrame {
     public MetricsUI(MetricsCalculator.Metrics result,
                               List<ClassInfo> classes,
                               int initialX) {
+        this(result, classes, initialX, null);
+    }
+
+    public MetricsUI(MetricsCalculator.Metrics result,
+                              List<ClassInfo> classes,
+                              int initialX,
+                              Instrumentation instrumentation) {
+        this(result, classes, SymbolTable.of(classes), Collections.singletonMap("", classes), initialX, instrumentation);
+    }
+
+    /**
+     * Fenêtre sur un modèle : le graphe d'appels est entretenu fichier par fichier lors des
+     * rafraîchissements ({@link #refresh(MetricsCalculator.Metrics, ProjectModel)}).
+     * @param result
+     * @param model
+     * @param initialX
+     * @param instrumentation
+     */
+    public MetricsUI(MetricsCalculator.Metrics result,
+                              ProjectModel model,
+                              int initialX,
+                              Instrumentation instrumentation) {
+        this(result, model.classes, model.symbols(), model.classesByFile, initialX, instrumentation);
+    }
+
+    private MetricsUI(MetricsCalculator.Metrics result,
+                      List<ClassInfo> classes,
+                      SymbolTable symbols,
+                      Map<String, List<ClassInfo>> classesByFile,
+                      int initialX,
+                      Instrumentation instrumentation) {
         super("HAI913I – Métriques (Projet / Classes / Méthodes)");
+        this.instrumentation = instrumentation;
         this.classes = classes;
         this.result = result;
         this.thresholdX = initialX;
@@ -61,40 +109,21 @@ public class MetricsUI extends JFrame {
 
         var tabs = new JTabbedPane();
 
-        CallGraphPanel callGraphPanel = new CallGraphPanel(classes);
+        Derived d = derive(classes, symbols, classesByFile);
+
+        callGraphPanel = new CallGraphPanel(classes, d.gMethods);
         tabs.addTab("Call Graph", callGraphPanel);
 
-        CouplingPanel couplingPanel = new CouplingPanel(classes, (a, b) -> {
-            Optional<ClassInfo> A = classes.stream().filter(c -> c.className.equals(a)).findFirst();
-            Optional<ClassInfo> B = classes.stream().filter(c -> c.className.equals(b)).findFirst();
-            if (A.isPresent() && B.isPresent())
-                return MetricsCalculator.calculateCoupling(CallGraphBuilder.buildMethodGraph(classes, true), classes,A.get(), B.get());
-            return 0;
-        });
+        // Couplage lu dans le cache du service : pas de recalcul à chaque sélection
+        couplingPanel = new CouplingPanel(classes, d.coupling);
 
         tabs.addTab("Couplage", couplingPanel);
 
-        CouplingWeightedGraphPanel couplingWeightedGraphPanel = new CouplingWeightedGraphPanel();
-
-        CallGraphBuilder.DiGraph<String> gMethods =
-                CallGraphBuilder.buildMethodGraph(classes, /* includeExternal */ true);
-
-        metrics.CouplingGraphBuilder.WeightedGraph<String> gCoupling =
-                metrics.CouplingGraphBuilder.buildFromCalculator(gMethods, classes);
-
-        couplingWeightedGraphPanel.setGraph(gCoupling);
+        couplingWeightedGraphPanel.setGraph(d.gCoupling);
 
         tabs.addTab("Graphe de couplage", couplingWeightedGraphPanel);
 
-        // Coupling provider via ta fonction existante
-        HierarchicalClustering.Coupling couplingFn = (A, B) ->
-                metrics.MetricsCalculator.calculateCoupling(gMethods, classes, A, B);
-
-        metrics.HierarchicalClustering.Node root =
-                metrics.HierarchicalClustering.cluster(classes, couplingFn, metrics.HierarchicalClustering.Linkage.AVERAGE);
-
-        DendrogramPanel dendrogramPanel = new DendrogramPanel();
-        dendrogramPanel.setRoot(root);
+        dendrogramPanel.setRoot(d.root);
 
         JScrollPane scroll = new JScrollPane(dendrogramPanel);
         scroll.getHorizontalScrollBar().setUnitIncrement(16);
@@ -102,7 +131,8 @@ public class MetricsUI extends JFrame {
 
         tabs.addTab("Dendrogram", scroll);
 
-        tabs.addTab("Modules", new ui.ModulesPanel(classes, couplingFn));
+        modulesPanel = new ui.ModulesPanel(classes, d.coupling);
+        tabs.addTab("Modules", modulesPanel);
 
         setContentPane(tabs);
        // fillProjectTab();
@@ -112,6 +142,105 @@ public class MetricsUI extends JFrame {
         setLocationRelativeTo(null);
     }
 
+    /** Graphes dérivés d'une liste de classes (calculés hors EDT lors d'un rafraîchissement). */
+    private static final class Derived {
+        CallGraphBuilder.DiGraph<String> gMethods;
+        CouplingGraphBuilder.WeightedGraph<String> gCoupling;
+        HierarchicalClustering.Node root;
+        List<ClassInfo> classes;
+        SymbolTable symbols;
+        CouplingService coupling;
+    }
+
+    /**
+     * Met à jour le graphe d'appels entretenu (seuls les fichiers dont les classes ont changé) ; le
+     * couplage et le clustering ne sont recalculés que si le graphe ou les classes ont changé.
+     * <p>
+     * Le service de couplage affiché n'est jamais modifié ici : un nouveau service est construit pour
+     * un nouveau modèle, et publié sur l'EDT avec la liste de classes ({@link #refresh}).
+     * </p>
+     */
+    @SuppressWarnings("try")
+    private synchronized Derived derive(List<ClassInfo> classes, SymbolTable symbols,
+                                        Map<String, List<ClassInfo>> classesByFile) {
+        Derived d = new Derived();
+        IncrementalCallGraph.ChangeSet changes;
+        try (Instrumentation.Span s = span(Instrumentation.CALL_GRAPH)) {
+            changes = callGraph.sync(classesByFile);
+            d.gMethods = (changes.isEmpty() && derived != null) ? derived.gMethods : callGraph.snapshot().asDiGraph();
+        }
+        // Service (et matrice) repris tel quel si ni le graphe ni la table du modèle n'ont changé
+        if (derived != null && d.gMethods == derived.gMethods && symbols == derived.symbols) {
+            d.coupling = derived.coupling;
+        } else {
+            d.coupling = new CouplingService();
+            d.coupling.update(symbols, d.gMethods);
+        }
+
+        if (changes.isEmpty() && derived != null && sameNames(derived.classes, classes)) {
+            d.gCoupling = derived.gCoupling;
+            d.root = derived.root;
+        } else {
+            try (Instrumentation.Span s = span(Instrumentation.COUPLING)) {
+                d.gCoupling = CouplingGraphBuilder.fromMatrix(d.coupling.matrix());
+            }
+            try (Instrumentation.Span s = span(Instrumentation.CLUSTERING)) {
+                d.root = HierarchicalClustering.cluster(classes, d.coupling, HierarchicalClustering.Linkage.AVERAGE);
+            }
+        }
+        d.classes = classes;
+        d.symbols = symbols;
+        derived = d;
+        return d;
+    }
+
+    private static boolean sameNames(List<ClassInfo> a, List<ClassInfo> b) {
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            if (!Objects.equals(a.get(i).qualifiedName, b.get(i).qualifiedName)
+                    || !Objects.equals(a.get(i).className, b.get(i).className)) return false;
+        }
+        return true;
+    }
+
+    private Instrumentation.Span span(String phase) {
+        return (instrumentation != null) ? instrumentation.begin(phase) : null;
+    }
+
+    /**
+     * Met à jour les onglets avec un nouveau modèle (mode watch), sans recréer la fenêtre.
+     * Les graphes dérivés sont calculés sur le thread appelant, puis appliqués sur l'EDT.
+     * @param result
+     * @param classes
+     */
+    public void refresh(MetricsCalculator.Metrics result, List<ClassInfo> classes) {
+        refresh(result, classes, SymbolTable.of(classes), Collections.singletonMap("", classes));
+    }
+
+    /**
+     * Met à jour les onglets avec un nouveau modèle ; seuls les fichiers modifiés sont repris dans le
+     * graphe d'appels.
+     * @param result
+     * @param model
+     */
+    public void refresh(MetricsCalculator.Metrics result, ProjectModel model) {
+        refresh(result, model.classes, model.symbols(), model.classesByFile);
+    }
+
+    private void refresh(MetricsCalculator.Metrics result, List<ClassInfo> classes, SymbolTable symbols,
+                         Map<String, List<ClassInfo>> classesByFile) {
+        Derived d = derive(classes, symbols, classesByFile);
+        SwingUtilities.invokeLater(() -> {
+            this.result = result;
+            this.classes = classes;
+            callGraphPanel.setClasses(classes, d.gMethods);
+            couplingPanel.setClasses(classes, d.coupling);
+            couplingWeightedGraphPanel.setGraph(d.gCoupling);
+            dendrogramPanel.setRoot(d.root);
+            modulesPanel.setClasses(classes, d.coupling);
+        });
+    }
+
     // =============== Panels ===============
 
     private JPanel buildProjectPanel() {
@@ -385,9 +514,59 @@ public class MetricsUI extends JFrame {
     }
 
     // API statique
-    public static void show(MetricsCalculator.Metrics res,
-                            List<ClassInfo> classes,
-                            int initialX) {
-        SwingUtilities.invokeLater(() -> new MetricsUI(res, classes, initialX).setVisible(true));
+    public static MetricsUI show(MetricsCalculator.Metrics res,
+                                 List<ClassInfo> classes,
+                                 int initialX) {
+        return show(res, classes, initialX, null);
+    }
+
+    /**
+     * Ouvre la fenêtre sur un modèle (graphe d'appels entretenu par fichier en mode watch).
+     * @param res
+     * @param model
+     * @param initialX
+     * @param instrumentation null pour ne rien mesurer
+     * @return
+     */
+    public static MetricsUI show(MetricsCalculator.Metrics res,
+                                 ProjectModel model,
+                                 int initialX,
+                                 Instrumentation instrumentation) {
+        return open(() -> new MetricsUI(res, model, initialX, instrumentation));
+    }
+
+    /**
+     * Ouvre la fenêtre en mesurant le calcul des graphes dérivés (graphe d'appels, couplage, clustering).
+     * @param res
+     * @param classes
+     * @param initialX
+     * @param instrumentation null pour ne rien mesurer
+     * @return
+     */
+    public static MetricsUI show(MetricsCalculator.Metrics res,
+                                 List<ClassInfo> classes,
+                                 int initialX,
+                                 Instrumentation instrumentation) {
+        return open(() -> new MetricsUI(res, classes, initialX, instrumentation));
+    }
+
+    private static MetricsUI open(java.util.function.Supplier<MetricsUI> factory) {
+        MetricsUI[] ui = new MetricsUI[1];
+        Runnable open = () -> {
+            ui[0] = factory.get();
+            ui[0].setVisible(true);
+        };
+        if (SwingUtilities.isEventDispatchThread()) {
+            open.run();
+        } else {
+            try {
+                SwingUtilities.invokeAndWait(open);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (java.lang.reflect.InvocationTargetException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return ui[0];
     }
 }
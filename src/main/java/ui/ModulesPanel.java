@@ -13,8 +13,8 @@ import java.util.stream.Collectors;
 
 public class ModulesPanel extends JPanel {
 
-    private final List<ClassInfo> classes;
-    private final HierarchicalClustering.Coupling couplingFn;
+    private List<ClassInfo> classes;
+    private HierarchicalClustering.Coupling couplingFn;
 
     // UI
     private final JComboBox<HierarchicalClustering.Linkage> cbLinkage =
@@ -72,6 +72,18 @@ public class ModulesPanel extends JPanel {
         btnRun.addActionListener(e -> runClustering());
     }
 
+    /**
+     * Remplace les données (mode watch) et relance le clustering avec les paramètres courants.
+     * À appeler sur l'EDT.
+     * @param classes
+     * @param couplingFn
+     */
+    public void setClasses(List<ClassInfo> classes, HierarchicalClustering.Coupling couplingFn) {
+        this.classes = Objects.requireNonNull(classes);
+        this.couplingFn = Objects.requireNonNull(couplingFn);
+        runClustering();
+    }
+
     private void runClustering() {
         double CP = ((Number) spCP.getValue()).doubleValue();
         HierarchicalClustering.Linkage linkage = (HierarchicalClustering.Linkage) cbLinkage.getSelectedItem();
@@ -63,6 +63,7 @@ public class CallVisitor extends ASTVisitor {
 
         MethodCallInfo call = new MethodCallInfo();
         call.name = node.getName().getIdentifier();
+        call.line = lineOf(node);
 
         IMethodBinding mb = node.resolveMethodBinding();
         if (mb != null) {
@@ -95,11 +96,13 @@ public class CallVisitor extends ASTVisitor {
 
         MethodCallInfo call = new MethodCallInfo();
         call.name = node.getName().getIdentifier();
+        call.line = lineOf(node);
 
         IMethodBinding mb = node.resolveMethodBinding();
         if (mb != null) {
             call.declaringType = (mb.getDeclaringClass() != null) ? mb.getDeclaringClass().getQualifiedName() : null;
             call.qualifiedSignature = qualifiedSignatureOf(mb);
+            call.methodKey = mb.getMethodDeclaration().getKey();
         }
 
         // récepteur = super-classe courante
@@ -117,11 +120,13 @@ public class CallVisitor extends ASTVisitor {
 
         MethodCallInfo call = new MethodCallInfo();
         call.name = "<init>";
+        call.line = lineOf(node);
 
         IMethodBinding mb = node.resolveConstructorBinding();
         if (mb != null) {
             call.declaringType = (mb.getDeclaringClass() != null) ? mb.getDeclaringClass().getQualifiedName() : null;
             call.qualifiedSignature = qualifiedSignatureOf(mb);
+            call.methodKey = mb.getMethodDeclaration().getKey();
         }
 
         ITypeBinding tb = (node.getType() != null) ? node.getType().resolveBinding() : null;
@@ -138,10 +143,12 @@ public class CallVisitor extends ASTVisitor {
 
         MethodCallInfo call = new MethodCallInfo();
         call.name = "<init>";
+        call.line = lineOf(node);
         IMethodBinding mb = node.resolveConstructorBinding();
         if (mb != null) {
             call.declaringType = (mb.getDeclaringClass() != null) ? mb.getDeclaringClass().getQualifiedName() : null;
             call.qualifiedSignature = qualifiedSignatureOf(mb);
+            call.methodKey = mb.getMethodDeclaration().getKey();
             call.receiverStaticType = call.declaringType;
         } else if (!currentClassKey.isEmpty()) {
             ClassInfo ci = classesByKey.get(currentClassKey.peek());
@@ -159,10 +166,12 @@ public class CallVisitor extends ASTVisitor {
 
         MethodCallInfo call = new MethodCallInfo();
         call.name = "<init>";
+        call.line = lineOf(node);
         IMethodBinding mb = node.resolveConstructorBinding();
         if (mb != null) {
             call.declaringType = (mb.getDeclaringClass() != null) ? mb.getDeclaringClass().getQualifiedName() : null;
             call.qualifiedSignature = qualifiedSignatureOf(mb);
+            call.methodKey = mb.getMethodDeclaration().getKey();
             call.receiverStaticType = call.declaringType;
         } else if (!currentClassKey.isEmpty()) {
             ClassInfo ci = classesByKey.get(currentClassKey.peek());
@@ -231,4 +240,12 @@ public class CallVisitor extends ASTVisitor {
         }
         return null;
     }
+
+    /** Ligne de l'appel dans son fichier (0 si inconnue). */
+    private static int lineOf(ASTNode node) {
+        ASTNode root = node.getRoot();
+        return (root instanceof CompilationUnit)
+                ? Math.max(0, ((CompilationUnit) root).getLineNumber(node.getStartPosition()))
+                : 0;
+    }
 }
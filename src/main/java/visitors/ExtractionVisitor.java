@@ -0,0 +1,552 @@
+package visitors;
+
+import model.ClassInfo;
+import model.FieldInfo;
+import model.FileMetrics;
+import model.MethodCallInfo;
+import model.MethodInfo;
+import org.eclipse.jdt.core.dom.*;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Visiteur d'extraction "fusionné" : remplit ClassInfo, FieldInfo, MethodInfo et MethodCallInfo
+ * en un seul parcours de l'AST, au lieu des quatre parcours de
+ * {@link ClassDeclVisitor}, {@link FieldVisitor}, {@link MethodDeclVisitor} et {@link CallVisitor}.
+ * <p>
+ * Le visiteur maintient sa propre pile de classes et de méthodes : le binding de chaque
+ * déclaration n'est résolu qu'une fois, et il n'y a plus de remontée de la chaîne des parents.
+ * Avec les bindings, le résultat est identique à celui des quatre visiteurs, y compris pour
+ * les sous-arbres qu'ils ne parcouraient pas (reproduits par les champs {@code *MutedBy}).
+ * Sans binding (ou avec des bindings récupérés), les anciens visiteurs ne retrouvaient pas
+ * toujours la classe ou la méthode propriétaire (clés différentes d'un visiteur à l'autre) :
+ * ici attributs, méthodes et appels sont rattachés via la pile.
+ * </p>
+ * <p>
+ * Sur un AST parsé sans bindings (mode rapide), le visiteur relève en plus ce qu'il faut pour
+ * résoudre les appels par nom après coup : imports du fichier, types déclarés des paramètres et
+ * variables locales, receveur textuel et nombre d'arguments de chaque appel.
+ * </p>
+ */
+public class ExtractionVisitor extends ASTVisitor {
+
+    private final FileMetrics lines;
+    private final String packageName;
+    private final List<String> imports = new ArrayList<>();
+
+    // AST sans bindings : on relève les types des variables locales pour la résolution par nom
+    private final boolean syntaxOnly;
+    private final List<Map<String, String>> localsStack = new ArrayList<>();
+
+    private final Map<String, ClassInfo> classesByKey = new LinkedHashMap<>();
+
+    // Pile des TypeDeclaration englobantes (les enums et classes anonymes n'y sont pas, comme avant)
+    private final Deque<ClassInfo> classStack = new ArrayDeque<>();
+    // Pile des méthodes englobantes ; null si la méthode n'a pas de classe propriétaire
+    private final List<MethodInfo> methodStack = new ArrayList<>();
+
+    // Sous-arbres ignorés par les anciens visiteurs (noeud qui a coupé le parcours)
+    private ASTNode fieldsMutedBy;
+    private ASTNode methodsMutedBy;
+    private ASTNode callsMutedBy;
+
+    public ExtractionVisitor(CompilationUnit cu) {
+        this(cu, FileMetrics.of(null, cu, cu.getLength()));
+    }
+
+    /**
+     * @param cu
+     * @param lines table des lignes du fichier (pour les LOC des méthodes)
+     */
+    public ExtractionVisitor(CompilationUnit cu, FileMetrics lines) {
+        this.lines = lines;
+        this.packageName = (cu.getPackage() != null)
+                ? cu.getPackage().getName().getFullyQualifiedName()
+                : "";
+        this.syntaxOnly = !cu.getAST().hasResolvedBindings();
+
+        for (Object o : cu.imports()) {
+            ImportDeclaration imp = (ImportDeclaration) o;
+            if (imp.isStatic()) continue;
+            imports.add(imp.getName().getFullyQualifiedName() + (imp.isOnDemand() ? ".*" : ""));
+        }
+    }
+
+    public Map<String, ClassInfo> getClassesByKey() {
+        return classesByKey;
+    }
+
+    // --- Classes ---
+
+    @Override
+    public boolean visit(TypeDeclaration node) {
+        ITypeBinding binding = node.resolveBinding();
+
+        ClassInfo ci = new ClassInfo();
+        ci.className = node.getName().getIdentifier();
+        ci.packageName = packageName;
+        ci.imports = new ArrayList<>(imports);
+
+        if (binding != null) {
+            ci.qualifiedName = binding.getQualifiedName();
+            ci.typeKey = binding.getKey();
+            ci.isInterface = binding.isInterface();
+            ci.isEnum = binding.isEnum();
+
+            ITypeBinding superB = binding.getSuperclass();
+            ci.superClass = (superB != null) ? superB.getQualifiedName() : null;
+
+            for (ITypeBinding t = superB; t != null; t = t.getSuperclass()) {
+                ci.superClassesChain.add(t.getQualifiedName());
+            }
+
+            for (ITypeBinding itf : binding.getInterfaces()) {
+                ci.interfaces.add(itf.getQualifiedName());
+            }
+        } else {
+            Type superT = node.getSuperclassType();
+            ci.superClass = (superT != null) ? superT.toString() : null;
+            ci.isInterface = node.isInterface();
+            for (Object t : node.superInterfaceTypes()) ci.interfaces.add(t.toString());
+
+            // préfixe des classes englobantes : deux classes internes homonymes restent distinctes
+            StringBuilder key = new StringBuilder(ci.className);
+            for (ClassInfo outer : classStack) key.insert(0, outer.className + ".");
+            ci.typeKey = "NO_BINDING:" + ci.packageName + "." + key;
+
+            // Mode rapide : même nom qualifié que celui qu'aurait donné le binding (Outer.Inner)
+            if (syntaxOnly) ci.qualifiedName = ci.packageName.isEmpty() ? key.toString() : ci.packageName + "." + key;
+        }
+
+        classesByKey.put(ci.typeKey, ci);
+        classStack.push(ci);
+        return true;
+    }
+
+    @Override
+    public void endVisit(TypeDeclaration node) {
+        classStack.pop();
+    }
+
+    // --- Attributs ---
+
+    @Override
+    public boolean visit(FieldDeclaration node) {
+        ClassInfo ci = classStack.peek();
+        if (fieldsMutedBy == null && ci != null) {
+            String visibility = visibilityOf(node.modifiers());
+            String type = node.getType().toString();
+
+            @SuppressWarnings("unchecked")
+            List<VariableDeclarationFragment> frags = node.fragments();
+            for (VariableDeclarationFragment f : frags) {
+                FieldInfo fi = new FieldInfo();
+                fi.name = f.getName().getIdentifier();
+                fi.visibility = visibility;
+                fi.type = type;
+                ci.fields.add(fi);
+            }
+        }
+        // FieldVisitor ne descendait pas dans les initialiseurs
+        if (fieldsMutedBy == null) fieldsMutedBy = node;
+        return true;
+    }
+
+    @Override
+    public void endVisit(FieldDeclaration node) {
+        if (fieldsMutedBy == node) fieldsMutedBy = null;
+    }
+
+    // --- Méthodes ---
+
+    @Override
+    public boolean visit(MethodDeclaration node) {
+        ClassInfo ci = classStack.peek();
+        MethodInfo mi = null;
+
+        if (methodsMutedBy == null && ci != null) {
+            mi = new MethodInfo();
+            mi.name = node.getName().getIdentifier();
+            mi.visibility = visibilityOf(node.modifiers());
+            mi.isStatic = Modifier.isStatic(node.getModifiers());
+            if (node.getReturnType2() != null) mi.returnType = node.getReturnType2().toString();
+
+            @SuppressWarnings("unchecked")
+            List<SingleVariableDeclaration> params = node.parameters();
+            mi.parameterTypes = params.stream()
+                    .map(p -> p.getType().toString())
+                    .collect(Collectors.toList());
+
+            mi.parametersCount = params.size();
+
+            IMethodBinding mb = node.resolveBinding();
+            if (mb != null) {
+                IMethodBinding d = mb.getMethodDeclaration();
+                mi.methodKey = d.getKey();
+                mi.declaringType = (d.getDeclaringClass() != null) ? d.getDeclaringClass().getQualifiedName() : null;
+                mi.qualifiedSignature = qualifiedSignatureOf(d);
+            } else {
+                mi.methodKey = "NO_BINDING:" + ownerName(ci) + "#" + mi.name + "(" +
+                        String.join(",", mi.parameterTypes) + ")";
+            }
+
+            Block body = node.getBody();
+            mi.loc = (body != null) ? methodLOC(lines, body) : 0;
+
+            ci.methods.add(mi);
+        } else if (methodsMutedBy == null) {
+            // MethodDeclVisitor ne descendait pas sous une méthode sans classe propriétaire
+            methodsMutedBy = node;
+        }
+
+        methodStack.add(mi);
+        if (syntaxOnly) {
+            Map<String, String> locals = new HashMap<>();
+            for (Object p : node.parameters()) {
+                SingleVariableDeclaration v = (SingleVariableDeclaration) p;
+                locals.put(v.getName().getIdentifier(), v.getType().toString());
+            }
+            localsStack.add(locals);
+        }
+        return true;
+    }
+
+    @Override
+    public void endVisit(MethodDeclaration node) {
+        methodStack.remove(methodStack.size() - 1);
+        if (syntaxOnly) localsStack.remove(localsStack.size() - 1);
+        if (methodsMutedBy == node) methodsMutedBy = null;
+    }
+
+    // --- Variables locales (sans bindings uniquement) ---
+
+    @Override
+    public boolean visit(VariableDeclarationStatement node) {
+        if (syntaxOnly) declareLocals(node.getType(), node.fragments());
+        return true;
+    }
+
+    @Override
+    public boolean visit(VariableDeclarationExpression node) {
+        if (syntaxOnly) declareLocals(node.getType(), node.fragments());
+        return true;
+    }
+
+    @Override
+    public boolean visit(EnhancedForStatement node) {
+        if (syntaxOnly) declareLocal(node.getParameter().getName().getIdentifier(), node.getParameter().getType());
+        return true;
+    }
+
+    @Override
+    public boolean visit(CatchClause node) {
+        if (syntaxOnly) declareLocal(node.getException().getName().getIdentifier(), node.getException().getType());
+        return true;
+    }
+
+    // --- Appels ---
+
+    @Override
+    public boolean visit(MethodInvocation node) {
+        if (callsMutedBy != null) return true;
+        if (methodStack.isEmpty()) {
+            callsMutedBy = node;
+            return true;
+        }
+
+        MethodCallInfo call = new MethodCallInfo();
+        call.name = node.getName().getIdentifier();
+        call.argumentCount = node.arguments().size();
+        call.line = lines.lineOf(node.getStartPosition());
+
+        IMethodBinding mb = node.resolveMethodBinding();
+        if (mb != null) {
+            IMethodBinding d = mb.getMethodDeclaration();
+            call.declaringType = (d.getDeclaringClass() != null) ? d.getDeclaringClass().getQualifiedName() : null;
+            call.qualifiedSignature = qualifiedSignatureOf(d);
+            call.methodKey = d.getKey();
+        }
+
+        if (syntaxOnly && node.getExpression() != null) {
+            syntacticReceiver(node.getExpression(), call);
+            addCall(call);
+            return true;
+        }
+
+        // récepteur statique
+        String recv = resolveReceiverType(node.getExpression());
+        if (recv == null) {
+            // appel implicite: this
+            ClassInfo ci = classStack.peek();
+            recv = (ci != null && ci.qualifiedName != null) ? ci.qualifiedName :
+                    (ci != null ? ci.className : null);
+        }
+        call.receiverStaticType = recv;
+
+        addCall(call);
+        return true;
+    }
+
+    @Override
+    public void endVisit(MethodInvocation node) {
+        if (callsMutedBy == node) callsMutedBy = null;
+    }
+
+    @Override
+    public boolean visit(SuperMethodInvocation node) {
+        if (callsMutedBy != null) return true;
+        callsMutedBy = node;
+        if (methodStack.isEmpty()) return true;
+
+        MethodCallInfo call = new MethodCallInfo();
+        call.name = node.getName().getIdentifier();
+        call.argumentCount = node.arguments().size();
+        call.line = lines.lineOf(node.getStartPosition());
+
+        IMethodBinding mb = node.resolveMethodBinding();
+        if (mb != null) {
+            call.declaringType = (mb.getDeclaringClass() != null) ? mb.getDeclaringClass().getQualifiedName() : null;
+            call.qualifiedSignature = qualifiedSignatureOf(mb);
+            call.methodKey = mb.getMethodDeclaration().getKey();
+        }
+
+        // récepteur = super-classe courante
+        ClassInfo ci = classStack.peek();
+        call.receiverStaticType = (ci != null && ci.superClass != null) ? ci.superClass : "java.lang.Object";
+
+        addCall(call);
+        return true;
+    }
+
+    @Override
+    public void endVisit(SuperMethodInvocation node) {
+        if (callsMutedBy == node) callsMutedBy = null;
+    }
+
+    @Override
+    public boolean visit(ClassInstanceCreation node) {
+        if (callsMutedBy != null) return true;
+        callsMutedBy = node;
+        if (methodStack.isEmpty()) return true;
+
+        MethodCallInfo call = new MethodCallInfo();
+        call.name = "<init>";
+        call.argumentCount = node.arguments().size();
+        call.line = lines.lineOf(node.getStartPosition());
+
+        IMethodBinding mb = node.resolveConstructorBinding();
+        if (mb != null) {
+            call.declaringType = (mb.getDeclaringClass() != null) ? mb.getDeclaringClass().getQualifiedName() : null;
+            call.qualifiedSignature = qualifiedSignatureOf(mb);
+            call.methodKey = mb.getMethodDeclaration().getKey();
+        }
+
+        ITypeBinding tb = (node.getType() != null) ? node.getType().resolveBinding() : null;
+        call.receiverStaticType = (tb != null) ? tb.getQualifiedName() : (node.getType() != null ? node.getType().toString() : null);
+
+        addCall(call);
+        return true;
+    }
+
+    @Override
+    public void endVisit(ClassInstanceCreation node) {
+        if (callsMutedBy == node) callsMutedBy = null;
+    }
+
+    @Override
+    public boolean visit(ConstructorInvocation node) { // this(...)
+        if (callsMutedBy != null) return true;
+        callsMutedBy = node;
+        if (methodStack.isEmpty()) return true;
+
+        MethodCallInfo call = new MethodCallInfo();
+        call.name = "<init>";
+        call.argumentCount = node.arguments().size();
+        call.line = lines.lineOf(node.getStartPosition());
+        IMethodBinding mb = node.resolveConstructorBinding();
+        if (mb != null) {
+            call.declaringType = (mb.getDeclaringClass() != null) ? mb.getDeclaringClass().getQualifiedName() : null;
+            call.qualifiedSignature = qualifiedSignatureOf(mb);
+            call.methodKey = mb.getMethodDeclaration().getKey();
+            call.receiverStaticType = call.declaringType;
+        } else {
+            ClassInfo ci = classStack.peek();
+            call.receiverStaticType = (ci != null) ? ownerName(ci) : null;
+        }
+
+        addCall(call);
+        return true;
+    }
+
+    @Override
+    public void endVisit(ConstructorInvocation node) {
+        if (callsMutedBy == node) callsMutedBy = null;
+    }
+
+    @Override
+    public boolean visit(SuperConstructorInvocation node) { // super(...)
+        if (callsMutedBy != null) return true;
+        callsMutedBy = node;
+        if (methodStack.isEmpty()) return true;
+
+        MethodCallInfo call = new MethodCallInfo();
+        call.name = "<init>";
+        call.argumentCount = node.arguments().size();
+        call.line = lines.lineOf(node.getStartPosition());
+        IMethodBinding mb = node.resolveConstructorBinding();
+        if (mb != null) {
+            call.declaringType = (mb.getDeclaringClass() != null) ? mb.getDeclaringClass().getQualifiedName() : null;
+            call.qualifiedSignature = qualifiedSignatureOf(mb);
+            call.methodKey = mb.getMethodDeclaration().getKey();
+            call.receiverStaticType = call.declaringType;
+        } else {
+            ClassInfo ci = classStack.peek();
+            call.receiverStaticType = (ci != null) ? ci.superClass : null;
+        }
+
+        addCall(call);
+        return true;
+    }
+
+    @Override
+    public void endVisit(SuperConstructorInvocation node) {
+        if (callsMutedBy == node) callsMutedBy = null;
+    }
+
+    // ---- helpers ----
+
+    private static String ownerName(ClassInfo ci) {
+        if (ci.qualifiedName != null) return ci.qualifiedName;
+        return ci.packageName.isEmpty() ? ci.className : ci.packageName + "." + ci.className;
+    }
+
+    private void declareLocals(Type type, List<?> fragments) {
+        for (Object f : fragments) {
+            declareLocal(((VariableDeclarationFragment) f).getName().getIdentifier(), type);
+        }
+    }
+
+    private void declareLocal(String name, Type type) {
+        if (!localsStack.isEmpty()) localsStack.get(localsStack.size() - 1).put(name, type.toString());
+    }
+
+    /** Type déclaré d'une variable locale ou d'un paramètre visible (méthodes englobantes comprises). */
+    private String localType(String name) {
+        for (int i = localsStack.size() - 1; i >= 0; i--) {
+            String t = localsStack.get(i).get(name);
+            if (t != null) return t;
+        }
+        return null;
+    }
+
+    /**
+     * Récepteur d'un appel sans binding : type textuel quand la syntaxe le donne (variable locale,
+     * {@code new T()}, cast, littéral), sinon expression textuelle (attribut ou nom de type) à
+     * résoudre plus tard par nom. Laisse les deux à null si le récepteur est un appel chaîné.
+     * @param expr
+     * @param call
+     */
+    private void syntacticReceiver(Expression expr, MethodCallInfo call) {
+        while (expr instanceof ParenthesizedExpression) expr = ((ParenthesizedExpression) expr).getExpression();
+
+        if (expr instanceof SimpleName) {
+            String name = ((SimpleName) expr).getIdentifier();
+            String local = localType(name);
+            if (local != null) call.receiverStaticType = local;
+            else call.receiverExpression = name;
+        } else if (expr instanceof ThisExpression) {
+            ClassInfo ci = classStack.peek();
+            call.receiverStaticType = (ci != null) ? ci.className : null;
+        } else if (expr instanceof FieldAccess && ((FieldAccess) expr).getExpression() instanceof ThisExpression) {
+            call.receiverExpression = ((FieldAccess) expr).getName().getIdentifier();
+        } else if (expr instanceof QualifiedName) {
+            String qn = ((QualifiedName) expr).getFullyQualifiedName();
+            int dot = qn.indexOf('.');
+            String local = localType(qn.substring(0, dot));
+            if (local != null) {
+                // v.f.g : type de la variable + chemin d'attributs
+                call.receiverStaticType = local;
+                call.receiverExpression = qn.substring(dot + 1);
+            } else {
+                call.receiverExpression = qn;
+            }
+        } else if (expr instanceof ClassInstanceCreation) {
+            call.receiverStaticType = ((ClassInstanceCreation) expr).getType().toString();
+        } else if (expr instanceof CastExpression) {
+            call.receiverStaticType = ((CastExpression) expr).getType().toString();
+        } else if (expr instanceof StringLiteral) {
+            call.receiverStaticType = "java.lang.String";
+        }
+    }
+
+    private void addCall(MethodCallInfo call) {
+        MethodInfo where = methodStack.get(methodStack.size() - 1);
+        if (where != null) where.calls.add(call);
+    }
+
+    /**
+     * Map la visibilité d'une déclaration avec une chaine relative associée
+     * @param modifiers
+     * @return
+     */
+    private static String visibilityOf(List<?> modifiers) {
+        for (Object m : modifiers) {
+            if (m instanceof Modifier) {
+                Modifier mod = (Modifier) m;
+                if (mod.isPublic()) return "public";
+                if (mod.isProtected()) return "protected";
+                if (mod.isPrivate()) return "private";
+            }
+        }
+        return "package-private";
+    }
+
+    /**
+     * Signature qualifiée d'une méthode, même format que {@link MethodDeclVisitor} :
+     * <code>owner.methodName(T1,T2,...)->ReturnType</code> ou <code>owner.&lt;init&gt;(T1,T2,...)</code>
+     * @param mb
+     * @return
+     */
+    private static String qualifiedSignatureOf(IMethodBinding mb) {
+        String owner = (mb.getDeclaringClass() != null) ? mb.getDeclaringClass().getQualifiedName() : "<unknown>";
+        String name  = mb.isConstructor() ? "<init>" : mb.getName();
+        String params = Arrays.stream(mb.getParameterTypes())
+                .map(t -> t.getErasure().getQualifiedName())
+                .collect(Collectors.joining(","));
+        String ret = mb.isConstructor() ? "" : "->" + mb.getReturnType().getErasure().getQualifiedName();
+        return owner + "." + name + "(" + params + ")" + ret;
+    }
+
+    /**
+     * Type statique du receveur d'un appel (expression, ou nom de type pour un appel statique)
+     * @param expr
+     * @return
+     */
+    private static String resolveReceiverType(Expression expr) {
+        if (expr == null) return null;
+
+        ITypeBinding tb = expr.resolveTypeBinding();
+        if (tb != null) return tb.getQualifiedName();
+
+        if (expr instanceof Name) {
+            IBinding b = ((Name) expr).resolveBinding();
+            if (b instanceof ITypeBinding) {
+                return ((ITypeBinding) b).getQualifiedName();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compte le nombre de ligne de code du corps d'une méthode
+     * @param lines table des lignes du fichier
+     * @param body
+     * @return
+     */
+    private static int methodLOC(FileMetrics lines, Block body) {
+        int start = body.getStartPosition();
+        int end   = start + body.getLength() - 1;
+        return lines.linesBetween(start, end);
+    }
+}
@@ -1,6 +1,7 @@
 package visitors;
 
 import model.ClassInfo;
+import model.FileMetrics;
 import model.MethodInfo;
 import org.eclipse.jdt.core.dom.*;
 
@@ -11,11 +12,15 @@ public class MethodDeclVisitor extends ASTVisitor {
 
     private final Map<String, ClassInfo> classesByKey;
     private final Map<String, MethodInfo> methodsByKey = new LinkedHashMap<>();
-    private final CompilationUnit cu;
+    private final FileMetrics lines;
 
     public MethodDeclVisitor(Map<String, ClassInfo> classesByKey, CompilationUnit cu) {
+        this(classesByKey, FileMetrics.of(null, cu, cu.getLength()));
+    }
+
+    public MethodDeclVisitor(Map<String, ClassInfo> classesByKey, FileMetrics lines) {
         this.classesByKey = classesByKey;
-        this.cu = cu;
+        this.lines = lines;
     }
 
     public Map<String, MethodInfo> getMethodsByKey() {
@@ -41,6 +46,7 @@ public class MethodDeclVisitor extends ASTVisitor {
         MethodInfo mi = new MethodInfo();
         mi.name = node.getName().getIdentifier();
         mi.visibility = visibilityOf(node.modifiers());
+        mi.isStatic = Modifier.isStatic(node.getModifiers());
         if (node.getReturnType2() != null) mi.returnType = node.getReturnType2().toString();
 
         @SuppressWarnings("unchecked")
@@ -65,7 +71,7 @@ public class MethodDeclVisitor extends ASTVisitor {
         }
 
         Block body = node.getBody();
-        mi.loc = (body != null) ? methodLOC(cu, body) : 0;
+        mi.loc = (body != null) ? methodLOC(lines, body) : 0;
 
         ci.methods.add(mi);
         return true;
@@ -125,15 +131,13 @@ public class MethodDeclVisitor extends ASTVisitor {
 
     /**
      * Compte le nombre de ligne de code du corps d'une méthode
-     * @param cu
+     * @param lines table des lignes du fichier
      * @param body
      * @return
      */
-    private static int methodLOC(CompilationUnit cu, Block body) {
+    private static int methodLOC(FileMetrics lines, Block body) {
         int start = body.getStartPosition();
         int end   = start + body.getLength() - 1;
-        int startLine = cu.getLineNumber(start); // 1-based
-        int endLine   = cu.getLineNumber(end);   // 1-based
-        return Math.max(0, endLine - startLine + 1);
+        return lines.linesBetween(start, end);
     }
 }